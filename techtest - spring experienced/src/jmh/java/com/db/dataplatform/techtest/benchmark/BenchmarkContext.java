@@ -0,0 +1,30 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts the application against its embedded H2 store without the web server and without the demo client flow.
+ * Properties are passed as command line arguments so they take precedence over application.properties.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--techtest.demo-flow.enabled=false");
+        args.add("--logging.level.root=WARN");
+        Arrays.stream(properties).map(property -> "--" + property).forEach(args::add);
+        return new SpringApplicationBuilder(TechTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+}
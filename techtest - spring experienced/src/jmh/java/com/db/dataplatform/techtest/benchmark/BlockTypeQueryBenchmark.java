@@ -0,0 +1,108 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * Queries a fixed number of BLOCKTYPEA rows while the amount of unrelated BLOCKTYPEB rows grows.
+ * The indexed query should stay flat across {@code rowCount}; the findAll-and-filter baseline grows with it.
+ * The block type result cache is off so every call reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockTypeQueryBenchmark {
+
+    private static final int MATCHING_ROWS = 100;
+    private static final int INSERT_BATCH = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    private int rowCount;
+
+    private ConfigurableApplicationContext context;
+    private DataBodyService dataBodyService;
+    private DataStoreRepository dataStoreRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("techtest.cache.block-type.enabled=false");
+        dataBodyService = context.getBean(DataBodyService.class);
+        dataStoreRepository = context.getBean(DataStoreRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        insertRows(jdbcTemplate, 0, MATCHING_ROWS, BlockTypeEnum.BLOCKTYPEA);
+        insertRows(jdbcTemplate, MATCHING_ROWS, rowCount, BlockTypeEnum.BLOCKTYPEB);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DataBodyEntity> indexedQuery() {
+        return dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @Benchmark
+    public List<DataBodyEntity> findAllAndFilter() {
+        return dataStoreRepository.findAll()
+                .stream()
+                .filter(entry -> entry.getDataHeaderEntity().getBlocktype() == BlockTypeEnum.BLOCKTYPEA)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Every row shares the one stored copy of {@code DUMMY_DATA}.
+     */
+    static void insertRows(JdbcTemplate jdbcTemplate, int firstId, int count, BlockTypeEnum blockType) {
+        Timestamp now = Timestamp.from(Instant.now());
+        if (jdbcTemplate.update("update DATA_CONTENT set REF_COUNT = REF_COUNT + ? where CHECKSUM = ?", count, MD5_CHECKSUM) == 0) {
+            jdbcTemplate.update("insert into DATA_CONTENT (CHECKSUM, DATA_BODY, REF_COUNT, CREATED_TIMESTAMP) values (?, ?, ?, ?)",
+                    MD5_CHECKSUM, DUMMY_DATA, count, now);
+        }
+        List<Object[]> headers = new ArrayList<>(INSERT_BATCH);
+        List<Object[]> bodies = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < count; i++) {
+            long id = firstId + i;
+            headers.add(new Object[]{id, "BENCH-" + id, blockType.name(), now});
+            bodies.add(new Object[]{id, id, MD5_CHECKSUM, now});
+            if (headers.size() == INSERT_BATCH || i == count - 1) {
+                jdbcTemplate.batchUpdate("insert into DATA_HEADER (DATA_HEADER_ID, NAME, BLOCKTYPE, CREATED_TIMESTAMP) values (?, ?, ?, ?)", headers);
+                jdbcTemplate.batchUpdate("insert into DATA_STORE (DATA_STORE_ID, DATA_HEADER_ID, CONTENT_CHECKSUM, CREATED_TIMESTAMP) values (?, ?, ?, ?)", bodies);
+                headers.clear();
+                bodies.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.impl.ChecksumCalculatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.DatatypeConverter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying one body checksum: the per-request MessageDigest, getBytes and DatatypeConverter path the
+ * server used to run, against {@link ChecksumCalculator} with each algorithm.
+ * Run with {@code -prof gc} to compare allocation per operation as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    @Param({"64", "4096", "262144"})
+    public int bodySize;
+
+    @Param({"MD5", "CRC32", "XXHASH64"})
+    public ChecksumAlgorithm algorithm;
+
+    private final ChecksumCalculator checksumCalculator = new ChecksumCalculatorImpl();
+
+    private String body;
+    private String expected;
+
+    @Setup
+    public void setUp() {
+        char[] chars = new char[bodySize];
+        Random random = new Random(42);
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('A' + random.nextInt(26));
+        }
+        body = new String(chars);
+        expected = checksumCalculator.checksum(algorithm, body);
+    }
+
+    @Benchmark
+    public boolean legacyMd5() throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        String myHash = DatatypeConverter.printHexBinary(md.digest(body.getBytes())).toLowerCase();
+        return myHash.equals(expected);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return checksumCalculator.matches(algorithm, body, expected);
+    }
+
+    @Benchmark
+    public String checksum() {
+        return checksumCalculator.checksum(algorithm, body);
+    }
+}
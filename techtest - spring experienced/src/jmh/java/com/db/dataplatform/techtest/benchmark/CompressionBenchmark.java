@@ -0,0 +1,110 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.ContentCoding;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * CPU cost of each {@link ContentCoding} on a batch push request: a JSON array of envelopes whose bodies are
+ * generated text. The bytes that would go on the wire for each coding are printed once per trial, since JMH only
+ * reports time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final String[] WORDS = {"trade", "settlement", "account", "price", "quantity", "currency", "EUR",
+            "USD", "GBP", "booked", "cancelled", "amended", "counterparty", "desk", "london", "frankfurt", "new",
+            "york", "notional", "maturity", "coupon", "rate", "fixed", "floating", "swap", "bond", "equity", "fx",
+            "spot", "forward", "the", "of", "and", "on", "for", "at", "with", "2020-06-30", "T+2", "confirmed"};
+
+    @Param({"GZIP", "LZ4"})
+    public ContentCoding coding;
+
+    @Param({"500"})
+    public int envelopes;
+
+    @Param({"1000"})
+    public int bodySize;
+
+    private byte[] payload;
+    private byte[] encoded;
+    private final byte[] readBuffer = new byte[8192];
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = new Random(42);
+        List<DataEnvelope> batch = new ArrayList<>(envelopes);
+        for (int i = 0; i < envelopes; i++) {
+            batch.add(new DataEnvelope(new DataHeader("ENVELOPE-" + i, BlockTypeEnum.BLOCKTYPEA),
+                    new DataBody(text(random)), MD5_CHECKSUM));
+        }
+        payload = objectMapper.writeValueAsBytes(batch);
+        encoded = encode();
+        System.out.printf("%n%s: %d bytes -> %d bytes on the wire (%.1f%%)%n",
+                coding, payload.length, encoded.length, 100.0 * encoded.length / payload.length);
+    }
+
+    private String text(Random random) {
+        StringBuilder body = new StringBuilder(bodySize + 16);
+        while (body.length() < bodySize) {
+            body.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            if (random.nextInt(10) == 0) {
+                body.append(random.nextInt(1_000_000)).append(' ');
+            }
+        }
+        return body.substring(0, bodySize);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+        try (OutputStream encoder = coding.encode(out)) {
+            encoder.write(payload);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public long decode() throws IOException {
+        long total = 0;
+        try (InputStream decoder = coding.decode(new ByteArrayInputStream(encoded))) {
+            for (int n; (n = decoder.read(readBuffer)) > 0; ) {
+                total += n;
+            }
+        }
+        return total;
+    }
+}
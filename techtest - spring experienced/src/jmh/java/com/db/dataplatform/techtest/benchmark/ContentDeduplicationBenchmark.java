@@ -0,0 +1,107 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost per row of writing bodies of {@value #BODY_LENGTH} characters when a given share of them repeats one of
+ * {@value #SHARED_BODIES} bodies already stored, saved one at a time and in batches of {@value #BATCH_SIZE}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ContentDeduplicationBenchmark {
+
+    static final int BODY_LENGTH = 1000;
+    static final int SHARED_BODIES = 10;
+    static final int BATCH_SIZE = 100;
+
+    @Param({"0", "50", "90"})
+    public int duplicatePercent;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<String> sharedBodies = new ArrayList<>();
+
+    private ConfigurableApplicationContext context;
+    private DataBodyService dataBodyService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("techtest.cache.block-type.enabled=false");
+        dataBodyService = context.getBean(DataBodyService.class);
+        for (int i = 0; i < SHARED_BODIES; i++) {
+            sharedBodies.add(uniqueBody());
+            dataBodyService.saveDataBody(row(sharedBodies.get(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void save() {
+        dataBodyService.saveDataBody(row(nextBody()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Boolean> saveBatch() {
+        List<DataBodyEntity> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(row(nextBody()));
+        }
+        return dataBodyService.saveDataBodies(batch);
+    }
+
+    private String nextBody() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextInt(100) < duplicatePercent ? sharedBodies.get(random.nextInt(SHARED_BODIES)) : uniqueBody();
+    }
+
+    private String uniqueBody() {
+        StringBuilder body = new StringBuilder(BODY_LENGTH).append(sequence.incrementAndGet()).append(':');
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (body.length() < BODY_LENGTH) {
+            body.append((char) ('a' + random.nextInt(26)));
+        }
+        return body.toString();
+    }
+
+    private DataBodyEntity row(String body) {
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setName("DEDUP-" + sequence.incrementAndGet());
+        dataHeaderEntity.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        dataBodyEntity.setDataBody(body);
+        return dataBodyEntity;
+    }
+}
@@ -0,0 +1,85 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+
+/**
+ * {@link DataBodyService} against the embedded H2 store: a single row save, a keyset page of a block type and a
+ * lookup by name. The block type result cache is off so queries reach the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataBodyServiceBenchmark {
+
+    private static final int PRELOADED_ROWS = 10000;
+    // Preloaded ids sit far above the sequences so saves made through JPA cannot collide with them.
+    private static final int FIRST_PRELOADED_ID = 100_000_000;
+    private static final int PAGE_SIZE = 100;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private DataBodyService dataBodyService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("techtest.cache.block-type.enabled=false");
+        dataBodyService = context.getBean(DataBodyService.class);
+        BlockTypeQueryBenchmark.insertRows(context.getBean(JdbcTemplate.class), FIRST_PRELOADED_ID, PRELOADED_ROWS, BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void save() {
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setName("SERVICE-" + sequence.incrementAndGet());
+        dataHeaderEntity.setBlocktype(BlockTypeEnum.BLOCKTYPEB);
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        dataBodyEntity.setDataBody(DUMMY_DATA);
+        dataBodyService.saveDataBody(dataBodyEntity);
+    }
+
+    @Benchmark
+    public List<DataBodyEntity> queryPage() {
+        long after = FIRST_PRELOADED_ID + ThreadLocalRandom.current().nextInt(PRELOADED_ROWS - PAGE_SIZE);
+        return dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, after, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<DataBodyEntity> queryByName() {
+        return dataBodyService.getDataByBlockName("BENCH-" + (FIRST_PRELOADED_ID + ThreadLocalRandom.current().nextInt(PRELOADED_ROWS)));
+    }
+}
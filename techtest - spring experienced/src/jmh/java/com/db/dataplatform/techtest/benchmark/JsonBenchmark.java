@@ -0,0 +1,101 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * Jackson work on either side of the server: reading a pushed {@link DataEnvelope}, and writing a block type query
+ * response as a JSON array and as newline delimited JSON. The mapper is built the way Spring Boot builds its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"100"})
+    public int responseRows;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private byte[] envelopeJson;
+    private List<DataBodyEntity> response;
+    private ObjectWriter rowWriter;
+
+    @Setup
+    public void setUp() throws IOException {
+        envelopeJson = objectMapper.writeValueAsBytes(new DataEnvelope(
+                new DataHeader("JSON", BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), MD5_CHECKSUM));
+
+        response = new ArrayList<>(responseRows);
+        for (int i = 0; i < responseRows; i++) {
+            DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+            dataHeaderEntity.setDataHeaderId((long) i);
+            dataHeaderEntity.setName("JSON-" + i);
+            dataHeaderEntity.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+            dataHeaderEntity.setCreatedTimestamp(Instant.now());
+            DataBodyEntity dataBodyEntity = new DataBodyEntity();
+            dataBodyEntity.setDataStoreId((long) i);
+            dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+            dataBodyEntity.setDataBody(DUMMY_DATA);
+            dataBodyEntity.setCreatedTimestamp(Instant.now());
+            response.add(dataBodyEntity);
+        }
+        rowWriter = objectMapper.writerFor(DataBodyEntity.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Benchmark
+    public DataEnvelope readEnvelope() throws IOException {
+        return objectMapper.readValue(envelopeJson, DataEnvelope.class);
+    }
+
+    @Benchmark
+    public byte[] writeResponseArray() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public int writeResponseNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (DataBodyEntity entry : response) {
+                rowWriter.writeValue(generator, entry);
+                generator.writeRaw('\n');
+            }
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,54 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.mapper.EnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.mapper.ServerMapperConfiguration;
+import com.db.dataplatform.techtest.server.mapper.impl.DirectEnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.mapper.impl.ModelMapperEnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * Per envelope cost of mapping an incoming envelope to its entities. Run with {@code -prof gc} for allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final DataEnvelope envelope = new DataEnvelope(
+            new DataHeader("MAPPER", BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), MD5_CHECKSUM);
+
+    private final EnvelopeEntityMapper directMapper = new DirectEnvelopeEntityMapper();
+    private final EnvelopeEntityMapper modelMapper = new ModelMapperEnvelopeEntityMapper(
+            new ServerMapperConfiguration().createModelMapperBean());
+
+    @Benchmark
+    public DataBodyEntity direct() {
+        return directMapper.toEntity(envelope);
+    }
+
+    @Benchmark
+    public DataBodyEntity modelMapper() {
+        return modelMapper.toEntity(envelope);
+    }
+}
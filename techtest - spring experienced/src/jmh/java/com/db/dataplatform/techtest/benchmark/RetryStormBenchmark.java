@@ -0,0 +1,81 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * Pushes per second through {@link Server} from {@value #THREADS} clients when a given share of them are retries of
+ * one of {@value #STORED_NAMES} envelopes already stored unchanged. The rest carry new names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(RetryStormBenchmark.THREADS)
+@Fork(1)
+public class RetryStormBenchmark {
+
+    static final int THREADS = 4;
+    static final int STORED_NAMES = 1000;
+
+    @Param({"0", "50", "90"})
+    public int retryPercent;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private Server server;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        server = context.getBean(Server.class);
+        for (int i = 0; i < STORED_NAMES; i++) {
+            server.saveDataEnvelope(envelope("STORED-" + i), ChecksumAlgorithm.MD5);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean push() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String name = random.nextInt(100) < retryPercent
+                ? "STORED-" + random.nextInt(STORED_NAMES) : "RETRY-" + sequence.incrementAndGet();
+        return server.saveDataEnvelope(envelope(name), ChecksumAlgorithm.MD5);
+    }
+
+    private DataEnvelope envelope(String name) {
+        return new DataEnvelope(new DataHeader(name, BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), MD5_CHECKSUM);
+    }
+}
@@ -0,0 +1,98 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * JSON against Smile for the two payloads that dominate the wire: a batch push request read by the server and a block
+ * type query response written by it. Both mappers are built the way the application builds them, so only the format
+ * differs. Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"JSON", "SMILE"})
+    public String format;
+
+    @Param({"500"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader batchReader;
+    private byte[] batch;
+    private List<DataBodyEntity> response;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if ("SMILE".equals(format)) {
+            builder.factory(new SmileFactory());
+        }
+        objectMapper = builder.build();
+        batchReader = objectMapper.readerFor(new TypeReference<List<DataEnvelope>>() {});
+
+        List<DataEnvelope> envelopes = new ArrayList<>(rows);
+        response = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            envelopes.add(new DataEnvelope(new DataHeader("WIRE-" + i, BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), MD5_CHECKSUM));
+            DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+            dataHeaderEntity.setDataHeaderId((long) i);
+            dataHeaderEntity.setName("WIRE-" + i);
+            dataHeaderEntity.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+            dataHeaderEntity.setCreatedTimestamp(Instant.now());
+            DataBodyEntity dataBodyEntity = new DataBodyEntity();
+            dataBodyEntity.setDataStoreId((long) i);
+            dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+            dataBodyEntity.setDataBody(DUMMY_DATA);
+            dataBodyEntity.setCreatedTimestamp(Instant.now());
+            response.add(dataBodyEntity);
+        }
+        batch = objectMapper.writeValueAsBytes(envelopes);
+        System.out.printf("%n%s: batch request %d bytes, block type response %d bytes%n",
+                format, batch.length, objectMapper.writeValueAsBytes(response).length);
+    }
+
+    @Benchmark
+    public List<DataEnvelope> readBatch() throws IOException {
+        return batchReader.readValue(batch);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,81 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * Acknowledgement latency of a single push from {@value #THREADS} concurrent writers: committed to H2 directly,
+ * against appended to the write-ahead log under each sync policy. The write-ahead log is placed in a fresh
+ * temporary directory per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(WriteAheadLogBenchmark.THREADS)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+
+    static final int THREADS = 8;
+
+    @Param({"direct", "ALWAYS", "INTERVAL", "NONE"})
+    public String mode;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private Server server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("techtest-wal-benchmark");
+        context = "direct".equals(mode)
+                ? BenchmarkContext.start()
+                : BenchmarkContext.start("techtest.server.wal.enabled=true",
+                "techtest.server.wal.directory=" + directory,
+                "techtest.server.wal.sync-policy=" + mode);
+        server = context.getBean(Server.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public boolean push() throws Exception {
+        DataHeader dataHeader = new DataHeader("WAL-" + sequence.incrementAndGet(), BlockTypeEnum.BLOCKTYPEA);
+        return server.saveDataEnvelope(new DataEnvelope(dataHeader, new DataBody(DUMMY_DATA), MD5_CHECKSUM));
+    }
+}
@@ -0,0 +1,11 @@
+package com.db.dataplatform.techtest.loadtest;
+
+/**
+ * How the driver reaches the server: blocking calls from the worker pool, the async client from the scheduling
+ * thread, or the async client with pushes coalesced by the batching producer.
+ */
+public enum ClientMode {
+    SYNC,
+    ASYNC,
+    BATCH
+}
@@ -0,0 +1,77 @@
+package com.db.dataplatform.techtest.loadtest;
+
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options are given as {@code --name=value} arguments; later arguments win over earlier ones.
+ */
+@Getter
+public class LoadTestConfig {
+
+    private final int rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int workers;
+    private final ClientMode client;
+    private final int preload;
+    private final long seed;
+    private final String reportDir;
+    private final Map<Operation, Integer> mix;
+
+    private LoadTestConfig(Map<String, String> options) {
+        rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        workers = Integer.parseInt(options.getOrDefault("workers", "64"));
+        client = ClientMode.valueOf(options.getOrDefault("client", "sync").toUpperCase());
+        preload = Integer.parseInt(options.getOrDefault("preload", "100"));
+        seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        reportDir = options.getOrDefault("report-dir", "build/reports/loadtest");
+        mix = parseMix(options.getOrDefault("mix", "push=70,get=20,update=10"));
+        if (rate <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || workers <= 0 || preload <= 0) {
+            throw new IllegalArgumentException("rate, duration, workers and preload must be positive, warmup must not be negative");
+        }
+    }
+
+    public static LoadTestConfig parse(String... args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return new LoadTestConfig(options);
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.trim().split("=");
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Operation mix needs a positive total weight: " + value);
+        }
+        return mix;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rate", rate);
+        description.put("durationSeconds", durationSeconds);
+        description.put("warmupSeconds", warmupSeconds);
+        description.put("workers", workers);
+        description.put("client", client.name().toLowerCase());
+        description.put("preload", preload);
+        description.put("seed", seed);
+        description.put("mix", mix);
+        return description;
+    }
+}
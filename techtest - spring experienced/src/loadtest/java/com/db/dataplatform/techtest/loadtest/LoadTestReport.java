@@ -0,0 +1,90 @@
+package com.db.dataplatform.techtest.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes report.json with a fixed key order and no timestamps so two runs diff cleanly, plus one HdrHistogram
+ * percentile distribution file per operation for plotting.
+ */
+public class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final Map<Operation, Histogram> latencies;
+
+    public LoadTestReport(LoadTestConfig config, OpenLoopDriver driver, long measuredNanos) {
+        this.latencies = driver.getLatencies();
+        double seconds = measuredNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, Histogram> entry : latencies.entrySet()) {
+            AtomicLong errors = driver.getErrors().get(entry.getKey());
+            if (entry.getValue().getTotalCount() > 0) {
+                operations.put(entry.getKey().name(), summarise(entry.getValue(), errors.get(), seconds));
+                total.add(entry.getValue());
+                totalErrors += errors.get();
+            }
+        }
+        report.put("config", config.describe());
+        report.put("total", summarise(total, totalErrors, seconds));
+        report.put("operations", operations);
+    }
+
+    /**
+     * Appends a named block after the latency figures, e.g. client connection pool statistics.
+     */
+    public void addSection(String name, Map<String, Object> values) {
+        report.put(name, values);
+    }
+
+    public void write(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create report directory " + directory);
+        }
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(new File(directory, "report.json"), report);
+        for (Map.Entry<Operation, Histogram> entry : latencies.entrySet()) {
+            try (PrintStream out = new PrintStream(new File(directory, entry.getKey().name().toLowerCase() + ".hgrm"), "UTF-8")) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    public String toJson() throws IOException {
+        return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+    }
+
+    private static Map<String, Object> summarise(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughputPerSecond", round(histogram.getTotalCount() / seconds));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latency.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    round(histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI));
+        }
+        latency.put("max", round(histogram.getMaxValue() / MICROS_PER_MILLI));
+        latency.put("mean", round(histogram.getMean() / MICROS_PER_MILLI));
+        summary.put("latencyMillis", latency);
+        return summary;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
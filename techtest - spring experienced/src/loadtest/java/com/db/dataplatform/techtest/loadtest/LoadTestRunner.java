@@ -0,0 +1,78 @@
+package com.db.dataplatform.techtest.loadtest;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import com.db.dataplatform.techtest.client.CountingHttpConnectionFactory;
+import com.db.dataplatform.techtest.client.component.AsyncClient;
+import com.db.dataplatform.techtest.client.component.BatchingProducer;
+import com.db.dataplatform.techtest.client.component.Client;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the whole application on port 8090 in this JVM, where the {@link Client} expects it, with the demo flow
+ * off, then drives it through the {@link Client} at a fixed offered rate and writes the report.
+ * <p>
+ * Options with a dot in the name are application properties and are handed to the application, e.g. to compare
+ * client pool sizes.
+ * <p>
+ * {@code ./gradlew loadTest -PloadTestArgs="--rate=500 --duration=60 --mix=push=50,get=40,update=10 --client=batch"}
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> applicationArgs = new ArrayList<>(Arrays.asList(
+                "--server.port=8090", "--techtest.demo-flow.enabled=false", "--logging.level.root=WARN"));
+        List<String> loadTestArgs = new ArrayList<>();
+        for (String arg : args) {
+            (isApplicationProperty(arg) ? applicationArgs : loadTestArgs).add(arg);
+        }
+        LoadTestConfig config = LoadTestConfig.parse(loadTestArgs.toArray(new String[0]));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TechTestApplication.class)
+                .run(applicationArgs.toArray(new String[0]))) {
+
+            OpenLoopDriver driver = new OpenLoopDriver(context.getBean(Client.class), context.getBean(AsyncClient.class),
+                    context.getBean(BatchingProducer.class), config);
+            driver.preload();
+            CountingHttpConnectionFactory connectionFactory = context.getBean(CountingHttpConnectionFactory.class);
+            long openedBefore = connectionFactory.getOpenedCount();
+            log.warn("Load test running: {}", config.describe());
+            long measuredNanos = driver.run();
+
+            LoadTestReport report = new LoadTestReport(config, driver, measuredNanos);
+            report.addSection("httpClient", httpClientStats(context.getBean(PoolingHttpClientConnectionManager.class),
+                    connectionFactory.getOpenedCount() - openedBefore));
+            report.write(new File(config.getReportDir()));
+            System.out.println(report.toJson());
+        }
+    }
+
+    private static boolean isApplicationProperty(String arg) {
+        int split = arg.indexOf('=');
+        return arg.startsWith("--") && arg.substring(0, split < 0 ? arg.length() : split).contains(".");
+    }
+
+    /**
+     * Connections opened covers warm-up and measurement; with keep-alive working it stays near the pool size.
+     */
+    private static Map<String, Object> httpClientStats(PoolingHttpClientConnectionManager connectionManager, long connectionsOpened) {
+        PoolStats totals = connectionManager.getTotalStats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connectionsOpened", connectionsOpened);
+        stats.put("maxTotal", connectionManager.getMaxTotal());
+        stats.put("maxPerRoute", connectionManager.getDefaultMaxPerRoute());
+        stats.put("availableAtEnd", totals.getAvailable());
+        stats.put("leasedAtEnd", totals.getLeased());
+        return stats;
+    }
+}
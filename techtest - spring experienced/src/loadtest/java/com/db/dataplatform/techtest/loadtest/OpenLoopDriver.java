@@ -0,0 +1,188 @@
+package com.db.dataplatform.techtest.loadtest;
+
+import com.db.dataplatform.techtest.client.api.model.DataBody;
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.api.model.DataHeader;
+import com.db.dataplatform.techtest.client.component.AsyncClient;
+import com.db.dataplatform.techtest.client.component.BatchingProducer;
+import com.db.dataplatform.techtest.client.component.Client;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+
+/**
+ * Issues operations on a fixed schedule regardless of how quickly earlier ones complete. Latency is measured from
+ * the time an operation was due, not from when a worker picked it up, so queueing behind a slow server shows up in
+ * the histograms instead of silently lowering the offered load (coordinated omission).
+ * <p>
+ * With {@code --client=async} the scheduling thread sends every operation itself through the {@link AsyncClient}
+ * and no worker pool is used. {@code --client=batch} does the same but hands pushes to the {@link BatchingProducer}.
+ */
+@Slf4j
+public class OpenLoopDriver {
+
+    private static final String PRELOAD_PREFIX = "LOAD-PRELOAD-";
+    private static final String PUSH_PREFIX = "LOAD-";
+
+    private final Client client;
+    private final AsyncClient asyncClient;
+    private final BatchingProducer batchingProducer;
+    private final AtomicLong outstanding = new AtomicLong();
+    private final LoadTestConfig config;
+    private final Random random;
+    private final Operation[] schedule;
+    private final AtomicLong pushSequence = new AtomicLong();
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    public OpenLoopDriver(Client client, AsyncClient asyncClient, BatchingProducer batchingProducer, LoadTestConfig config) {
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.batchingProducer = batchingProducer;
+        this.config = config;
+        this.random = new Random(config.getSeed());
+        this.schedule = buildSchedule(config.getMix());
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    public void preload() throws Exception {
+        for (int i = 0; i < config.getPreload(); i++) {
+            client.pushData(envelope(PRELOAD_PREFIX + i, BlockTypeEnum.BLOCKTYPEA));
+        }
+    }
+
+    /**
+     * @return the wall clock nanoseconds the measured part of the run took.
+     */
+    public long run() throws InterruptedException {
+        ExecutorService workers = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+
+        for (long i = 0; ; i++) {
+            long due = start + i * intervalNanos;
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            int target = random.nextInt(config.getPreload());
+            boolean measured = due >= measureFrom;
+            if (config.getClient() == ClientMode.SYNC) {
+                workers.execute(() -> execute(operation, target, due, measured));
+            } else {
+                executeAsync(operation, target, due, measured);
+            }
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Load test workers still busy after the run, {} operations abandoned", workers.shutdownNow().size());
+        }
+        long asyncDeadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (outstanding.get() > 0 && System.nanoTime() < asyncDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return Math.max(System.nanoTime(), end) - measureFrom;
+    }
+
+    private void execute(Operation operation, int target, long due, boolean measured) {
+        try {
+            switch (operation) {
+                case PUSH:
+                    client.pushData(envelope(PUSH_PREFIX + pushSequence.incrementAndGet(), BlockTypeEnum.BLOCKTYPEA));
+                    break;
+                case GET:
+                    client.getData(BlockTypeEnum.BLOCKTYPEA.name());
+                    break;
+                case UPDATE:
+                    BlockTypeEnum newBlockType = target % 2 == 0 ? BlockTypeEnum.BLOCKTYPEB : BlockTypeEnum.BLOCKTYPEA;
+                    client.updateData(PRELOAD_PREFIX + target, newBlockType.name());
+                    break;
+            }
+        } catch (Exception e) {
+            if (measured) {
+                errors.get(operation).incrementAndGet();
+            }
+            log.debug("{} failed", operation, e);
+        } finally {
+            if (measured) {
+                latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due));
+            }
+        }
+    }
+
+    private void executeAsync(Operation operation, int target, long due, boolean measured) {
+        CompletableFuture<?> result;
+        switch (operation) {
+            case PUSH:
+                DataEnvelope envelope = envelope(PUSH_PREFIX + pushSequence.incrementAndGet(), BlockTypeEnum.BLOCKTYPEA);
+                result = config.getClient() == ClientMode.BATCH ? batchingProducer.send(envelope) : asyncClient.pushData(envelope);
+                break;
+            case GET:
+                result = asyncClient.getData(BlockTypeEnum.BLOCKTYPEA.name());
+                break;
+            default:
+                BlockTypeEnum newBlockType = target % 2 == 0 ? BlockTypeEnum.BLOCKTYPEB : BlockTypeEnum.BLOCKTYPEA;
+                result = asyncClient.updateData(PRELOAD_PREFIX + target, newBlockType.name());
+                break;
+        }
+        outstanding.incrementAndGet();
+        result.whenComplete((ignored, failure) -> {
+            outstanding.decrementAndGet();
+            if (measured) {
+                if (failure != null) {
+                    errors.get(operation).incrementAndGet();
+                }
+                latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due));
+            }
+        });
+    }
+
+    private static DataEnvelope envelope(String name, BlockTypeEnum blockType) {
+        return new DataEnvelope(new DataHeader(name, blockType), new DataBody(DUMMY_DATA), null);
+    }
+
+    private static Operation[] buildSchedule(Map<Operation, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Operation[] schedule = new Operation[total];
+        int index = 0;
+        for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            for (int i = 0; i < weight.getValue(); i++) {
+                schedule[index++] = weight.getKey();
+            }
+        }
+        return schedule;
+    }
+
+    public Map<Operation, Histogram> getLatencies() {
+        return latencies;
+    }
+
+    public Map<Operation, AtomicLong> getErrors() {
+        return errors;
+    }
+}
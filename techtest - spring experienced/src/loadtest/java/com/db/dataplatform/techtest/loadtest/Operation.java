@@ -0,0 +1,7 @@
+package com.db.dataplatform.techtest.loadtest;
+
+public enum Operation {
+    PUSH,
+    GET,
+    UPDATE
+}
@@ -1,6 +1,5 @@
 package com.db.dataplatform.techtest;
 
-import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
@@ -22,17 +21,22 @@ public class EmbeddedDataSourceConfiguration {
     public static final String DATA_SOURCE = "dataSource";
     public static final String CLASSPATH_DB_MIGRATION_SETUP_SQL = "classpath:db.migration/setup.sql";
     public static final String PACKAGE_MODEL = "com.db.dataplatform.techtest.server.persistence.model";
+    public static final String POOL_NAME = "techtest-pool";
 
+    /**
+     * The pool starts on first use rather than in the constructor, so pool metrics can still be attached to it.
+     */
     @Bean(name = DATA_SOURCE)
     DataSource dataSource() {
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setDataSource(new EmbeddedDatabaseBuilder()
+        HikariDataSource hikariDataSource = new HikariDataSource();
+        hikariDataSource.setPoolName(POOL_NAME);
+        hikariDataSource.setDataSource(new EmbeddedDatabaseBuilder()
                 .setType(EmbeddedDatabaseType.H2)
                 .addScript(CLASSPATH_DB_MIGRATION_SETUP_SQL)
                 .setName(DATA_SOURCE)
                 .build());
 
-        return new HikariDataSource(hikariConfig);
+        return hikariDataSource;
     }
 
     @Bean
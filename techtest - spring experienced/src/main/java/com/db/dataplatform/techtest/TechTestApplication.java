@@ -7,6 +7,7 @@ import com.db.dataplatform.techtest.client.component.Client;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -28,6 +29,9 @@ public class TechTestApplication {
 	@Autowired
 	private Client client;
 
+	@Value("${techtest.demo-flow.enabled:true}")
+	private boolean demoFlowEnabled;
+
 	public static void main(String[] args) {
 
 		SpringApplication.run(TechTestApplication.class, args);
@@ -35,6 +39,10 @@ public class TechTestApplication {
 
 	@EventListener(ApplicationReadyEvent.class)
 	public void initiatePushDataFlow() throws JsonProcessingException, UnsupportedEncodingException {
+		if (!demoFlowEnabled) {
+			return;
+		}
+
 		pushData();
 
 		queryData();
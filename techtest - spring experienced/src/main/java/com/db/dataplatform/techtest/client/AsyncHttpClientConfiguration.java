@@ -0,0 +1,50 @@
+package com.db.dataplatform.techtest.client;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Non-blocking transport for {@link com.db.dataplatform.techtest.client.component.AsyncClient}. A couple of I/O
+ * reactor threads serve every connection; pool limits, timeouts and keep-alive follow the blocking client.
+ */
+@Configuration
+public class AsyncHttpClientConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient clientHttpAsyncClient(@Value("${techtest.client.http.max-total:64}") int maxTotal,
+                                                          @Value("${techtest.client.http.max-per-route:32}") int maxPerRoute,
+                                                          @Value("${techtest.client.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                                          @Value("${techtest.client.http.connection-request-timeout-ms:2000}") int connectionRequestTimeoutMs,
+                                                          @Value("${techtest.client.http.read-timeout-ms:10000}") int readTimeoutMs,
+                                                          @Value("${techtest.client.http.keep-alive-ms:30000}") long keepAliveMs,
+                                                          @Value("${techtest.client.async.io-threads:2}") int ioThreads) throws IOReactorException {
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setSoTimeout(readTimeoutMs)
+                        .build()));
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                        .setSocketTimeout(readTimeoutMs)
+                        .build())
+                .setKeepAliveStrategy(RestTemplateConfiguration.keepAliveStrategy(keepAliveMs))
+                .build();
+        httpAsyncClient.start();
+        return httpAsyncClient;
+    }
+}
@@ -0,0 +1,39 @@
+package com.db.dataplatform.techtest.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the connections the pool actually opens. Compared with the number of requests sent it shows how
+ * often keep-alive connections are reused.
+ */
+public class CountingHttpConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection>, MeterBinder {
+
+    private final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> delegate = ManagedHttpClientConnectionFactory.INSTANCE;
+    private final AtomicLong opened = new AtomicLong();
+
+    @Override
+    public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+        opened.incrementAndGet();
+        return delegate.create(route, config);
+    }
+
+    public long getOpenedCount() {
+        return opened.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("techtest.client.http.connections.opened", opened, AtomicLong::get)
+                .description("Connections opened by the client connection pool")
+                .register(registry);
+    }
+}
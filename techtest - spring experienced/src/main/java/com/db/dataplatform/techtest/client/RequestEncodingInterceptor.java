@@ -0,0 +1,91 @@
+package com.db.dataplatform.techtest.client;
+
+import com.db.dataplatform.techtest.server.api.model.ContentCoding;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * Encodes request bodies of at least {@code minBytes} sent under {@code pathPrefix} with the configured coding as they
+ * are written to the connection. HTTP has no negotiation for request codings, so the client is configured with one
+ * the server accepts, and other endpoints such as Hadoop get plain bodies. It must run before RequestContent so that
+ * the chunked, encoded entity is what gets framed.
+ */
+public class RequestEncodingInterceptor implements HttpRequestInterceptor {
+
+    private final ContentCoding coding;
+    private final long minBytes;
+    private final String pathPrefix;
+
+    public RequestEncodingInterceptor(ContentCoding coding, long minBytes, String pathPrefix) {
+        this.coding = coding;
+        this.minBytes = minBytes;
+        this.pathPrefix = pathPrefix;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        if (!(request instanceof HttpEntityEnclosingRequest)
+                || !URI.create(request.getRequestLine().getUri()).getPath().startsWith(pathPrefix)) {
+            return;
+        }
+        HttpEntityEnclosingRequest enclosingRequest = (HttpEntityEnclosingRequest) request;
+        HttpEntity entity = enclosingRequest.getEntity();
+        if (entity == null || entity.getContentEncoding() != null || request.containsHeader(HTTP.CONTENT_ENCODING)) {
+            return;
+        }
+        long length = entity.getContentLength();
+        if (length >= 0 && length < minBytes) {
+            return;
+        }
+        enclosingRequest.setEntity(new EncodingEntity(entity, coding));
+    }
+
+    private static class EncodingEntity extends HttpEntityWrapper {
+
+        private final ContentCoding coding;
+
+        EncodingEntity(HttpEntity entity, ContentCoding coding) {
+            super(entity);
+            this.coding = coding;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return new BasicHeader(HTTP.CONTENT_ENCODING, coding.getToken());
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public boolean isChunked() {
+            return true;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("Encoded content is only available through writeTo");
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            try (OutputStream encoded = coding.encode(outStream)) {
+                wrappedEntity.writeTo(encoded);
+            }
+        }
+    }
+}
@@ -1,36 +1,125 @@
 package com.db.dataplatform.techtest.client;
 
-import lombok.RequiredArgsConstructor;
+import com.db.dataplatform.techtest.server.api.BoundedInputStream;
+import com.db.dataplatform.techtest.server.api.model.ContentCoding;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.entity.InputStreamFactory;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Client side HTTP stack: a pooled Apache client that keeps connections alive between calls, with timeouts on
+ * connecting, on waiting for a pooled connection and on reading, and a background thread closing idle connections.
+ * Data server request bodies are compressed with techtest.client.http.request-encoding, and gzip and lz4 responses
+ * are inflated up to techtest.client.http.max-decoded-bytes.
+ */
 @Configuration
-@RequiredArgsConstructor
 public class RestTemplateConfiguration {
 
-    private final RestTemplateBuilder restTemplateBuilder;
+    private static final String DATA_SERVER_PATH = "/dataserver/";
 
     @Bean
-    public RestTemplate createRestTemplate(MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter,
-                                           StringHttpMessageConverter stringHttpMessageConverter) {
+    public CountingHttpConnectionFactory countingHttpConnectionFactory() {
+        return new CountingHttpConnectionFactory();
+    }
 
-        RestTemplate restTemplate = restTemplateBuilder.build();
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager clientConnectionManager(CountingHttpConnectionFactory connectionFactory,
+                                                                      @Value("${techtest.client.http.max-total:64}") int maxTotal,
+                                                                      @Value("${techtest.client.http.max-per-route:32}") int maxPerRoute,
+                                                                      @Value("${techtest.client.http.validate-after-inactivity-ms:2000}") int validateAfterInactivityMs) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(connectionFactory);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+        return connectionManager;
+    }
 
-        CloseableHttpClient client = HttpClients.createDefault();
-        RestTemplate template= new RestTemplate();
-        template.setRequestFactory(new HttpComponentsClientHttpRequestFactory(client));
-        template.setMessageConverters(Arrays.asList(mappingJackson2HttpMessageConverter, stringHttpMessageConverter));
+    @Bean
+    public PoolingHttpClientConnectionManagerMetricsBinder clientConnectionManagerMetrics(PoolingHttpClientConnectionManager clientConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(clientConnectionManager, "techtest-client");
+    }
+
+    /**
+     * Connections are kept for as long as the server's Keep-Alive header allows, or for keep-alive-ms when it sends none.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient clientHttpClient(PoolingHttpClientConnectionManager clientConnectionManager,
+                                                @Value("${techtest.client.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                                @Value("${techtest.client.http.connection-request-timeout-ms:2000}") int connectionRequestTimeoutMs,
+                                                @Value("${techtest.client.http.read-timeout-ms:10000}") int readTimeoutMs,
+                                                @Value("${techtest.client.http.keep-alive-ms:30000}") long keepAliveMs,
+                                                @Value("${techtest.client.http.idle-evict-ms:30000}") long idleEvictMs,
+                                                @Value("${techtest.client.http.request-encoding:lz4}") String requestEncoding,
+                                                @Value("${techtest.client.http.request-compression-min-bytes:1024}") long requestCompressionMinBytes,
+                                                @Value("${techtest.client.http.max-decoded-bytes:67108864}") long maxDecodedBytes) {
+        HttpClientBuilder builder = HttpClients.custom();
+        ContentCoding.fromToken(requestEncoding)
+                .ifPresent(coding -> builder.addInterceptorFirst(new RequestEncodingInterceptor(coding, requestCompressionMinBytes, DATA_SERVER_PATH)));
+        return builder
+                .setConnectionManager(clientConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                        .setSocketTimeout(readTimeoutMs)
+                        .build())
+                .setKeepAliveStrategy(keepAliveStrategy(keepAliveMs))
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictMs, TimeUnit.MILLISECONDS)
+                .setContentDecoderRegistry(contentDecoders(maxDecodedBytes))
+                .build();
+    }
 
-        return restTemplate;
+    /**
+     * The decoder names are also what the client sends in Accept-Encoding.
+     */
+    private static Map<String, InputStreamFactory> contentDecoders(long maxDecodedBytes) {
+        Map<String, InputStreamFactory> decoders = new LinkedHashMap<>();
+        for (ContentCoding coding : ContentCoding.values()) {
+            decoders.put(coding.getToken(), in -> new BoundedInputStream(coding.decode(in), maxDecodedBytes));
+        }
+        return decoders;
+    }
+
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long fallbackMs) {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? serverKeepAlive : fallbackMs;
+        };
+    }
+
+    /**
+     * The String converter goes first so pre-serialised JSON payloads are sent as they are rather than quoted again.
+     * JSON stays ahead of Smile, so Smile is only used when a request names it.
+     */
+    @Bean
+    public RestTemplate createRestTemplate(RestTemplateBuilder restTemplateBuilder,
+                                           CloseableHttpClient clientHttpClient,
+                                           MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter,
+                                           MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter,
+                                           StringHttpMessageConverter stringHttpMessageConverter) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(clientHttpClient))
+                .messageConverters(stringHttpMessageConverter, mappingJackson2HttpMessageConverter, smileHttpMessageConverter)
+                .build();
     }
 
 }
@@ -0,0 +1,18 @@
+package com.db.dataplatform.techtest.client.component;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link Client}. The calls return as soon as the request is handed to the transport;
+ * they only block while the cap on requests in flight is reached.
+ */
+public interface AsyncClient {
+    CompletableFuture<Boolean> pushData(DataEnvelope dataEnvelope);
+    CompletableFuture<List<DataEnvelope>> getData(String blockType);
+    CompletableFuture<Boolean> updateData(String blockName, String newBlockType);
+    CompletableFuture<Boolean> pushBigData(DataEnvelope dataEnvelope);
+    int getInFlight();
+}
@@ -0,0 +1,12 @@
+package com.db.dataplatform.techtest.client.component;
+
+import com.db.dataplatform.techtest.client.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface BatchingProducer {
+    CompletableFuture<BatchItemResult> send(DataEnvelope dataEnvelope);
+    void flush();
+    int getBuffered();
+}
@@ -5,10 +5,12 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import java.io.UnsupportedEncodingException;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface Client {
     void pushData(DataEnvelope dataEnvelope) throws JsonProcessingException;
     List<DataEnvelope> getData(String blockType);
+    void getData(String blockType, Consumer<DataEnvelope> consumer);
     boolean updateData(String blockName, String newBlockType) throws UnsupportedEncodingException;
     void pushBigData(DataEnvelope dataEnvelope) throws JsonProcessingException;
 
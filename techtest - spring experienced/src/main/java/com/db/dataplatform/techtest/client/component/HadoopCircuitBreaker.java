@@ -0,0 +1,16 @@
+package com.db.dataplatform.techtest.client.component;
+
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+
+import java.util.function.Supplier;
+
+public interface HadoopCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    <T> T execute(Supplier<T> call) throws HadoopClientException;
+    State getState();
+    long getTransitionCount(State state);
+    long getNotPermittedCount();
+    int getAvailableConcurrentCalls();
+}
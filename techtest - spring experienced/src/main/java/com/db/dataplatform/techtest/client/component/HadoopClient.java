@@ -0,0 +1,8 @@
+package com.db.dataplatform.techtest.client.component;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+
+public interface HadoopClient {
+    boolean pushBigData(DataEnvelope dataEnvelope) throws HadoopClientException;
+}
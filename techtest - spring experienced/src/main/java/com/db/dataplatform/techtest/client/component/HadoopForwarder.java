@@ -0,0 +1,16 @@
+package com.db.dataplatform.techtest.client.component;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface HadoopForwarder {
+    boolean forward(DataEnvelope dataEnvelope);
+    CompletableFuture<Boolean> submit(DataEnvelope dataEnvelope);
+    int getQueueDepth();
+    int getInFlight();
+    long getForwardedCount();
+    long getFailedCount();
+    long getRejectedCount();
+    long getShortCircuitedCount();
+}
@@ -0,0 +1,206 @@
+package com.db.dataplatform.techtest.client.component.impl;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.component.AsyncClient;
+import com.db.dataplatform.techtest.client.component.HadoopForwarder;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.CHECKSUM_ALGORITHM_HEADER;
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.URI_GETDATA;
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.URI_PATCHDATA;
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.URI_PUSHDATA;
+
+/**
+ * Same endpoints as {@link ClientImpl} on the non-blocking Apache client, so one caller thread can keep many
+ * requests in flight. Once max-in-flight requests are outstanding the calling thread blocks until one completes,
+ * which holds a fast producer to the pace of the server.
+ * Futures complete on the I/O reactor threads: dependent stages must not block, use the *Async stage methods for that.
+ * Big data goes through the {@link HadoopForwarder}, whose bounded queue is its own backpressure.
+ */
+@Slf4j
+@Service
+public class AsyncClientImpl implements AsyncClient, MeterBinder {
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final ObjectMapper objectMapper;
+    private final HadoopForwarder hadoopForwarder;
+    private final ChecksumCalculator checksumCalculator;
+    private final ChecksumAlgorithm checksumAlgorithm;
+    private final int maxInFlight;
+    private final Semaphore inFlightPermits;
+
+    public AsyncClientImpl(CloseableHttpAsyncClient httpAsyncClient, ObjectMapper objectMapper,
+                           HadoopForwarder hadoopForwarder, ChecksumCalculator checksumCalculator,
+                           @Value("${techtest.client.checksum-algorithm:MD5}") ChecksumAlgorithm checksumAlgorithm,
+                           @Value("${techtest.client.async.max-in-flight:256}") int maxInFlight) {
+        this.httpAsyncClient = httpAsyncClient;
+        this.objectMapper = objectMapper;
+        this.hadoopForwarder = hadoopForwarder;
+        this.checksumCalculator = checksumCalculator;
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.maxInFlight = maxInFlight;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> pushData(DataEnvelope dataEnvelope) {
+        if (!isValid(dataEnvelope)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        dataEnvelope.setMd5CheckSum(checksumCalculator.checksum(checksumAlgorithm, dataEnvelope.getDataBody().getDataBody()));
+        HttpPost request = new HttpPost(URI_PUSHDATA);
+        request.setHeader(CHECKSUM_ALGORITHM_HEADER, checksumAlgorithm.name());
+        try {
+            request.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(dataEnvelope), ContentType.APPLICATION_JSON));
+        } catch (JsonProcessingException jsonException) {
+            return failed(jsonException);
+        }
+        return execute(request, Boolean.class);
+    }
+
+    @Override
+    public CompletableFuture<List<DataEnvelope>> getData(String blockType) {
+        HttpGet request = new HttpGet(URI_GETDATA.expand(blockType));
+        request.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        return execute(request, DataBodyEntity[].class).thenApply(ClientImpl::toDataEnvelopes);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateData(String blockName, String newBlockType) {
+        try {
+            BlockTypeEnum.valueOf(newBlockType);
+        } catch (IllegalArgumentException unknownBlockType) {
+            return failed(unknownBlockType);
+        }
+        return execute(new HttpPut(URI_PATCHDATA.expand(blockName, newBlockType)), Boolean.class);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> pushBigData(DataEnvelope dataEnvelope) {
+        if (!isValid(dataEnvelope)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        dataEnvelope.setMd5CheckSum(checksumCalculator.checksum(checksumAlgorithm, dataEnvelope.getDataBody().getDataBody()));
+        return hadoopForwarder.submit(dataEnvelope);
+    }
+
+    @Override
+    public int getInFlight() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("techtest.client.async.in.flight", this, AsyncClientImpl::getInFlight)
+                .description("Requests sent by the async client and not yet answered")
+                .register(registry);
+    }
+
+    /**
+     * The permit is returned before the future completes, so a stage that sends the next request
+     * never waits for its own permit. It is returned exactly once, also when the client refuses the request
+     * outright, for example after it has been shut down.
+     */
+    private <T> CompletableFuture<T> execute(HttpUriRequest request, Class<T> responseType) {
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            return failed(interrupted);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlightPermits.release();
+            }
+        };
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            send(request, responseType, release, result);
+        } catch (RuntimeException refused) {
+            release.run();
+            log.debug("{} {} refused", request.getMethod(), request.getURI(), refused);
+            result.completeExceptionally(refused);
+        }
+        return result;
+    }
+
+    private <T> void send(HttpUriRequest request, Class<T> responseType, Runnable release, CompletableFuture<T> result) {
+        httpAsyncClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                release.run();
+                try {
+                    result.complete(read(response, responseType));
+                } catch (IOException | RuntimeException readException) {
+                    result.completeExceptionally(readException);
+                }
+            }
+
+            @Override
+            public void failed(Exception requestException) {
+                release.run();
+                log.debug("{} {} failed", request.getMethod(), request.getURI(), requestException);
+                result.completeExceptionally(requestException);
+            }
+
+            @Override
+            public void cancelled() {
+                release.run();
+                result.cancel(false);
+            }
+        });
+    }
+
+    private <T> T read(HttpResponse response, Class<T> responseType) throws IOException {
+        int status = response.getStatusLine().getStatusCode();
+        byte[] body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+        if (status >= 300) {
+            throw new HttpResponseException(status, response.getStatusLine().getReasonPhrase());
+        }
+        return objectMapper.readValue(body, responseType);
+    }
+
+    private boolean isValid(DataEnvelope dataEnvelope) {
+        if (dataEnvelope == null || dataEnvelope.getDataHeader() == null || dataEnvelope.getDataHeader().getBlockType() == null) {
+            log.info("Invalid push data: dataEnvelope, header or block type missing");
+            return false;
+        }
+        return true;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable cause) {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(cause);
+        return failed;
+    }
+}
@@ -0,0 +1,394 @@
+package com.db.dataplatform.techtest.client.component.impl;
+
+import com.db.dataplatform.techtest.client.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.component.BatchingProducer;
+import com.db.dataplatform.techtest.server.api.model.BatchItemStatus;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.CHECKSUM_ALGORITHM_HEADER;
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.URI_PUSHDATA_BATCH;
+
+/**
+ * Collects envelopes and sends them to the batch endpoint from a single sender thread, in the manner of a Kafka
+ * producer. A batch goes out when it reaches batch-size envelopes or max-batch-bytes of body, when the oldest
+ * envelope has waited linger-ms, or on {@link #flush()}.
+ * Each envelope gets its own future completed with its item result. Envelopes the server failed to persist, and whole
+ * batches lost to a transport error or a 5xx response, are put back at the head of the buffer and sent again after
+ * retry-backoff-ms, up to max-retries times. Checksum failures are final, as is a batch the server refused with a
+ * 4xx response, since sending it again would be refused the same way. Resending a batch whose response was lost is safe because
+ * the server answers an envelope it already stores unchanged as persisted, without writing it again.
+ * A batch that fails in an unexpected way fails its own envelopes only; the sender carries on with the next.
+ * {@link #send(DataEnvelope)} blocks while buffer-capacity envelopes are waiting. On shutdown the buffer is drained
+ * before the sender stops; whatever is left after the drain timeout fails.
+ */
+@Slf4j
+@Service
+public class BatchingProducerImpl implements BatchingProducer, MeterBinder {
+
+    private static final long ENVELOPE_OVERHEAD_BYTES = 128;
+    private static final ParameterizedTypeReference<List<BatchItemResult>> RESULTS = new ParameterizedTypeReference<List<BatchItemResult>>() {
+    };
+
+    private final RestTemplate restTemplate;
+    private final ChecksumCalculator checksumCalculator;
+    private final ChecksumAlgorithm checksumAlgorithm;
+    private final int batchSize;
+    private final long maxBatchBytes;
+    private final long lingerNanos;
+    private final int maxRetries;
+    private final long retryBackoffNanos;
+    private final int bufferCapacity;
+    private final long drainTimeoutMs;
+    private final MediaType mediaType;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition sendable = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private final Deque<PendingEnvelope> buffer = new ArrayDeque<>();
+    private long bufferedBytes;
+    private boolean flushRequested;
+    private boolean closed;
+
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final Thread sender;
+
+    public BatchingProducerImpl(@Lazy RestTemplate restTemplate, ChecksumCalculator checksumCalculator,
+                                @Value("${techtest.client.checksum-algorithm:MD5}") ChecksumAlgorithm checksumAlgorithm,
+                                @Value("${techtest.client.batch.size:500}") int batchSize,
+                                @Value("${techtest.client.batch.max-bytes:1048576}") long maxBatchBytes,
+                                @Value("${techtest.client.batch.linger-ms:20}") long lingerMs,
+                                @Value("${techtest.client.batch.max-retries:3}") int maxRetries,
+                                @Value("${techtest.client.batch.retry-backoff-ms:100}") long retryBackoffMs,
+                                @Value("${techtest.client.batch.buffer-capacity:10000}") int bufferCapacity,
+                                @Value("${techtest.client.batch.drain-timeout-ms:30000}") long drainTimeoutMs,
+                                @Value("${techtest.client.media-type:application/json}") MediaType mediaType) {
+        this.restTemplate = restTemplate;
+        this.checksumCalculator = checksumCalculator;
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.batchSize = batchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.maxRetries = maxRetries;
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMs);
+        this.bufferCapacity = bufferCapacity;
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.mediaType = mediaType;
+        this.sender = new CustomizableThreadFactory("batching-producer-").newThread(this::runSender);
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    @Override
+    public CompletableFuture<BatchItemResult> send(DataEnvelope dataEnvelope) {
+        dataEnvelope.setMd5CheckSum(checksumCalculator.checksum(checksumAlgorithm, dataEnvelope.getDataBody().getDataBody()));
+        PendingEnvelope pending = new PendingEnvelope(dataEnvelope, estimateBytes(dataEnvelope), System.nanoTime());
+        lock.lock();
+        try {
+            while (buffer.size() >= bufferCapacity && !closed) {
+                spaceAvailable.awaitUninterruptibly();
+            }
+            if (closed) {
+                pending.result.completeExceptionally(new IllegalStateException("Batching producer is closed"));
+                return pending.result;
+            }
+            buffer.addLast(pending);
+            bufferedBytes += pending.bytes;
+            if (buffer.size() >= batchSize || bufferedBytes >= maxBatchBytes || buffer.size() == 1) {
+                sendable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return pending.result;
+    }
+
+    /**
+     * Sends whatever is buffered without waiting for the linger time.
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            flushRequested = true;
+            sendable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getBuffered() {
+        lock.lock();
+        try {
+            return buffer.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("techtest.client.batch.buffered", this, BatchingProducerImpl::getBuffered)
+                .description("Envelopes waiting in the batching producer")
+                .register(registry);
+        FunctionCounter.builder("techtest.client.batch.sent", batchesSent, AtomicLong::get)
+                .description("Batches sent by the batching producer")
+                .register(registry);
+        FunctionCounter.builder("techtest.client.batch.retried", retried, AtomicLong::get)
+                .description("Envelopes sent again after a failure")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            sendable.signal();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        sender.join(drainTimeoutMs);
+        if (sender.isAlive()) {
+            sender.interrupt();
+            sender.join();
+        }
+    }
+
+    private void runSender() {
+        try {
+            List<PendingEnvelope> batch;
+            while ((batch = nextBatch()) != null) {
+                try {
+                    sendBatch(batch);
+                } catch (RuntimeException batchException) {
+                    log.error("Batch of {} envelopes failed", batch.size(), batchException);
+                    // Envelopes already completed keep their result.
+                    batch.forEach(pending -> pending.result.completeExceptionally(batchException));
+                }
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        } finally {
+            failRemaining();
+        }
+    }
+
+    /**
+     * Waits until a batch is due and takes it off the buffer. Retries at the head only wait for their backoff,
+     * they have lingered once already.
+     * @return null once the producer is closed and the buffer is empty.
+     */
+    private List<PendingEnvelope> nextBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (buffer.isEmpty()) {
+                    flushRequested = false;
+                    if (closed) {
+                        return null;
+                    }
+                    sendable.await();
+                    continue;
+                }
+                long now = System.nanoTime();
+                PendingEnvelope head = buffer.peekFirst();
+                long wait = Math.max(head.notBefore - now, 0);
+                boolean full = buffer.size() >= batchSize || bufferedBytes >= maxBatchBytes;
+                if (!full && !flushRequested && !closed && head.attempts == 0) {
+                    wait = Math.max(wait, head.enqueuedAt + lingerNanos - now);
+                }
+                if (wait <= 0) {
+                    return takeBatch();
+                }
+                sendable.awaitNanos(wait);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<PendingEnvelope> takeBatch() {
+        List<PendingEnvelope> batch = new ArrayList<>(Math.min(buffer.size(), batchSize));
+        long batchBytes = 0;
+        long now = System.nanoTime();
+        while (!buffer.isEmpty() && batch.size() < batchSize && buffer.peekFirst().notBefore <= now
+                && (batch.isEmpty() || batchBytes + buffer.peekFirst().bytes <= maxBatchBytes)) {
+            PendingEnvelope pending = buffer.pollFirst();
+            batchBytes += pending.bytes;
+            bufferedBytes -= pending.bytes;
+            batch.add(pending);
+        }
+        spaceAvailable.signalAll();
+        return batch;
+    }
+
+    private void sendBatch(List<PendingEnvelope> batch) {
+        List<DataEnvelope> envelopes = new ArrayList<>(batch.size());
+        for (PendingEnvelope pending : batch) {
+            envelopes.add(pending.envelope);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CHECKSUM_ALGORITHM_HEADER, checksumAlgorithm.name());
+        headers.setContentType(mediaType);
+        headers.setAccept(Collections.singletonList(mediaType));
+        List<BatchItemResult> results;
+        try {
+            results = restTemplate.exchange(URI_PUSHDATA_BATCH, HttpMethod.POST, new HttpEntity<>(envelopes, headers), RESULTS).getBody();
+            batchesSent.incrementAndGet();
+        } catch (ResourceAccessException | HttpServerErrorException sendException) {
+            log.warn("Batch of {} envelopes failed: {}", batch.size(), sendException.getMessage());
+            List<PendingEnvelope> retry = new ArrayList<>();
+            for (PendingEnvelope pending : batch) {
+                if (!retryOrFail(pending, retry, sendException)) {
+                    pending.result.completeExceptionally(sendException);
+                }
+            }
+            requeue(retry);
+            return;
+        } catch (RestClientException refused) {
+            log.warn("Batch of {} envelopes refused: {}", batch.size(), refused.getMessage());
+            batch.forEach(pending -> pending.result.completeExceptionally(refused));
+            return;
+        }
+        if (!coversBatch(results, batch.size())) {
+            IllegalStateException mismatch = new IllegalStateException("Expected one result for each of " + batch.size() + " envelopes");
+            batch.forEach(pending -> pending.result.completeExceptionally(mismatch));
+            return;
+        }
+        List<PendingEnvelope> retry = new ArrayList<>();
+        for (BatchItemResult result : results) {
+            PendingEnvelope pending = batch.get(result.getIndex());
+            if (result.getStatus() != BatchItemStatus.PERSISTENCE_FAILED || !retryOrFail(pending, retry, null)) {
+                pending.result.complete(result);
+            }
+        }
+        requeue(retry);
+    }
+
+    /**
+     * @return true if there is exactly one result for every index of the batch.
+     */
+    private static boolean coversBatch(List<BatchItemResult> results, int batchSize) {
+        if (results == null || results.size() != batchSize) {
+            return false;
+        }
+        boolean[] seen = new boolean[batchSize];
+        for (BatchItemResult result : results) {
+            int index = result.getIndex();
+            if (index < 0 || index >= batchSize || seen[index]) {
+                return false;
+            }
+            seen[index] = true;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the envelope was scheduled for another attempt.
+     */
+    private boolean retryOrFail(PendingEnvelope pending, List<PendingEnvelope> retry, Exception cause) {
+        if (pending.attempts >= maxRetries) {
+            log.warn("Giving up on data {} after {} attempts", pending.envelope.getDataHeader().getName(), pending.attempts + 1, cause);
+            return false;
+        }
+        pending.attempts++;
+        pending.notBefore = System.nanoTime() + retryBackoffNanos * pending.attempts;
+        retry.add(pending);
+        retried.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Retries go back to the head of the buffer in their original order.
+     */
+    private void requeue(List<PendingEnvelope> retry) {
+        if (retry.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (int i = retry.size() - 1; i >= 0; i--) {
+                buffer.addFirst(retry.get(i));
+                bufferedBytes += retry.get(i).bytes;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failRemaining() {
+        lock.lock();
+        try {
+            closed = true;
+            if (!buffer.isEmpty()) {
+                log.warn("Batching producer stopped with {} envelopes unsent", buffer.size());
+            }
+            IllegalStateException stopped = new IllegalStateException("Batching producer stopped before the envelope was sent");
+            buffer.forEach(pending -> pending.result.completeExceptionally(stopped));
+            buffer.clear();
+            bufferedBytes = 0;
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Character counts stand in for encoded bytes; exact for the ASCII payloads we carry and cheap to compute.
+     */
+    private static long estimateBytes(DataEnvelope dataEnvelope) {
+        return ENVELOPE_OVERHEAD_BYTES + dataEnvelope.getDataHeader().getName().length()
+                + dataEnvelope.getDataBody().getDataBody().length();
+    }
+
+    private static final class PendingEnvelope {
+        private final DataEnvelope envelope;
+        private final long bytes;
+        private final long enqueuedAt;
+        private final CompletableFuture<BatchItemResult> result = new CompletableFuture<>();
+        private int attempts;
+        private long notBefore;
+
+        private PendingEnvelope(DataEnvelope envelope, long bytes, long enqueuedAt) {
+            this.envelope = envelope;
+            this.bytes = bytes;
+            this.enqueuedAt = enqueuedAt;
+            this.notBefore = enqueuedAt;
+        }
+    }
+}
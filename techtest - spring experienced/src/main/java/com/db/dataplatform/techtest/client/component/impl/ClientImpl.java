@@ -1,21 +1,28 @@
 package com.db.dataplatform.techtest.client.component.impl;
 
+import com.db.dataplatform.techtest.client.api.model.DataBody;
 import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.client.api.model.DataHeader;
 import com.db.dataplatform.techtest.client.component.Client;
+import com.db.dataplatform.techtest.client.component.HadoopForwarder;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriTemplate;
 
-import javax.xml.bind.DatatypeConverter;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Client code does not require any test coverage
@@ -27,24 +34,27 @@ import java.util.*;
 public class ClientImpl implements Client {
 
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final HadoopForwarder hadoopForwarder;
+    private final ChecksumCalculator checksumCalculator;
+    @Value("${techtest.client.checksum-algorithm:MD5}")
+    private ChecksumAlgorithm checksumAlgorithm;
+    @Value("${techtest.client.media-type:application/json}")
+    private MediaType mediaType;
+    public static final String CHECKSUM_ALGORITHM_HEADER = "X-Checksum-Algorithm";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
     public static final String URI_PUSHDATA = "http://localhost:8090/dataserver/pushdata";
+    public static final String URI_PUSHDATA_BATCH = "http://localhost:8090/dataserver/pushdata/batch";
     public static final UriTemplate URI_GETDATA = new UriTemplate("http://localhost:8090/dataserver/data/{blockType}");
     public static final UriTemplate URI_PATCHDATA = new UriTemplate("http://localhost:8090/dataserver/update/{name}/{newBlockType}");
-    public static final UriTemplate URI_BIGDATA = new UriTemplate("ttp://localhost:8090/hadoopserver/pushbigdata");
+    public static final UriTemplate URI_BIGDATA = new UriTemplate("http://localhost:8090/hadoopserver/pushbigdata");
 
     @Override
     public void pushData(DataEnvelope dataEnvelope) {
         if(validateDataEnvelope(dataEnvelope)) {
-            try {
-                MessageDigest md = MessageDigest.getInstance("MD5");
-                byte[] digest = md.digest();
-                String myHash = DatatypeConverter
-                        .printHexBinary(digest).toLowerCase();
-                dataEnvelope.setMd5CheckSum(myHash);
-            } catch (NoSuchAlgorithmException algoException) {
-                log.error("Unable to hash message body", algoException);
-            }
-            restTemplate.postForLocation(URI_PUSHDATA, dataEnvelope);
+            dataEnvelope.setMd5CheckSum(checksumCalculator.checksum(checksumAlgorithm, dataEnvelope.getDataBody().getDataBody()));
+            restTemplate.postForLocation(URI_PUSHDATA, withChecksumAlgorithm(dataEnvelope));
             log.info("Pushing data {} to {}", dataEnvelope.getDataHeader().getName(), URI_PUSHDATA);
         }
      }
@@ -54,39 +64,84 @@ public class ClientImpl implements Client {
         log.info("Query for data with header block type {}", blockType);
         Map<String, String> pathVar = new HashMap<>();
         pathVar.put("blockType", blockType);
-        DataEnvelope[] data = restTemplate.getForEntity(URI_GETDATA.toString(), DataEnvelope[].class, pathVar).getBody();
-        List<DataEnvelope> resp = Arrays.asList(data);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(mediaType));
+        DataBodyEntity[] data = restTemplate.exchange(URI_GETDATA.toString(), HttpMethod.GET, new HttpEntity<>(headers), DataBodyEntity[].class, pathVar).getBody();
+        List<DataEnvelope> resp = toDataEnvelopes(data);
         return resp;
     }
 
+    /**
+     * Reads the newline delimited response one row at a time instead of binding the whole array.
+     */
+    @Override
+    public void getData(String blockType, Consumer<DataEnvelope> consumer) {
+        log.info("Streaming query for data with header block type {}", blockType);
+        Map<String, String> pathVar = new HashMap<>();
+        pathVar.put("blockType", blockType);
+        ObjectReader reader = objectMapper.readerFor(DataBodyEntity.class);
+        restTemplate.execute(URI_GETDATA.toString(), HttpMethod.GET,
+                request -> request.getHeaders().setAccept(Collections.singletonList(APPLICATION_NDJSON)),
+                response -> {
+                    try (MappingIterator<DataBodyEntity> data = reader.readValues(response.getBody())) {
+                        while (data.hasNextValue()) {
+                            consumer.accept(toDataEnvelope(data.nextValue()));
+                        }
+                    }
+                    return null;
+                }, pathVar);
+    }
+
+    /**
+     * The data endpoints return the stored rows rather than envelopes, and without a checksum.
+     */
+    static DataEnvelope toDataEnvelope(DataBodyEntity entry) {
+        DataHeader dataHeader = new DataHeader(entry.getDataHeaderEntity().getName(), entry.getDataHeaderEntity().getBlocktype());
+        return new DataEnvelope(dataHeader, new DataBody(entry.getDataBody()), null);
+    }
+
+    static List<DataEnvelope> toDataEnvelopes(DataBodyEntity[] data) {
+        List<DataEnvelope> dataEnvelopes = new ArrayList<>(data.length);
+        for (DataBodyEntity entry : data) {
+            dataEnvelopes.add(toDataEnvelope(entry));
+        }
+        return dataEnvelopes;
+    }
+
     @Override
     public boolean updateData(String blockName, String newBlockType) {
         log.info("Updating blocktype to {} for block with name {}", newBlockType, blockName);
         Map<String, String> pathVar = new HashMap<>();
         pathVar.put("name", blockName);
         pathVar.put("newBlockType", newBlockType);
-        DataHeader dh = new DataHeader(blockName, BlockTypeEnum.valueOf(blockName));
-        restTemplate.patchForObject(URI_PATCHDATA.toString(),   dh, Boolean.class, pathVar);
+        DataHeader dh = new DataHeader(blockName, BlockTypeEnum.valueOf(newBlockType));
+        restTemplate.put(URI_PATCHDATA.toString(), dh, pathVar);
         return true;
     }
 
+    /**
+     * Queues the envelope for the background Hadoop forwarder and returns without waiting for Hadoop.
+     */
     @Override
     public void pushBigData(DataEnvelope dataEnvelope) throws JsonProcessingException {
         if(validateDataEnvelope(dataEnvelope)) {
-            try {
-                MessageDigest md = MessageDigest.getInstance("MD5");
-                byte[] digest = md.digest();
-                String myHash = DatatypeConverter
-                        .printHexBinary(digest).toLowerCase();
-                dataEnvelope.setMd5CheckSum(myHash);
-            } catch (NoSuchAlgorithmException algoException) {
-                log.error("Unable to hash message body", algoException);
+            dataEnvelope.setMd5CheckSum(checksumCalculator.checksum(checksumAlgorithm, dataEnvelope.getDataBody().getDataBody()));
+            if (hadoopForwarder.forward(dataEnvelope)) {
+                log.info("Queued data {} for {}", dataEnvelope.getDataHeader().getName(), URI_BIGDATA);
             }
-            restTemplate.postForLocation(URI_BIGDATA.toString(), dataEnvelope.toString());
-            log.info("Pushing data {} to {}", dataEnvelope.getDataHeader().getName(), URI_BIGDATA);
         }
     }
 
+    /**
+     * Bodies are sent as techtest.client.media-type, JSON unless Smile is configured.
+     */
+    private <T> HttpEntity<T> withChecksumAlgorithm(T body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CHECKSUM_ALGORITHM_HEADER, checksumAlgorithm.name());
+        headers.setContentType(mediaType);
+        return new HttpEntity<>(body, headers);
+    }
+
     boolean validateDataEnvelope(DataEnvelope dataEnvelope) {
         boolean result = false;
         if(dataEnvelope == null || dataEnvelope.getDataHeader() == null) {
@@ -0,0 +1,217 @@
+package com.db.dataplatform.techtest.client.component.impl;
+
+import com.db.dataplatform.techtest.client.component.HadoopCircuitBreaker;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Count based circuit breaker with a bulkhead in front of it.
+ * The outcomes of the last N Hadoop calls are kept in a ring. The breaker opens once the share of
+ * timeouts and 5xx responses in that window reaches the threshold. After the open period it lets a
+ * few trial calls through (half open) and closes again only if all of them succeed.
+ * Calls are refused immediately while the breaker is open or the bulkhead is full.
+ * Every transition starts a new generation. A call is only counted in the generation it was admitted in, so a slow
+ * call admitted while closed cannot pass for a half-open trial, or count against a window that was reset since.
+ */
+@Slf4j
+@Service
+public class HadoopCircuitBreakerImpl implements HadoopCircuitBreaker, MeterBinder {
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final Semaphore bulkhead;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final Map<State, AtomicLong> transitions = new EnumMap<>(State.class);
+    private final AtomicLong notPermitted = new AtomicLong();
+
+    public HadoopCircuitBreakerImpl(@Value("${techtest.hadoop.breaker.window-size:20}") int windowSize,
+                                    @Value("${techtest.hadoop.breaker.minimum-calls:10}") int minimumCalls,
+                                    @Value("${techtest.hadoop.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                    @Value("${techtest.hadoop.breaker.open-duration-ms:30000}") long openDurationMs,
+                                    @Value("${techtest.hadoop.breaker.half-open-calls:3}") int halfOpenCalls,
+                                    @Value("${techtest.hadoop.bulkhead.max-concurrent-calls:8}") int maxConcurrentCalls) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenCalls = halfOpenCalls;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.window = new boolean[windowSize];
+        for (State s : State.values()) {
+            transitions.put(s, new AtomicLong());
+        }
+    }
+
+    /**
+     * Runs the call if the breaker and the bulkhead allow it and records the outcome.
+     * Exceptions thrown by the call are passed on unchanged.
+     * @throws HadoopClientException if the call was refused without being attempted.
+     */
+    @Override
+    public <T> T execute(Supplier<T> call) throws HadoopClientException {
+        if (!bulkhead.tryAcquire()) {
+            notPermitted.incrementAndGet();
+            throw new HadoopClientException("Hadoop bulkhead full");
+        }
+        try {
+            long admittedIn = tryAcquirePermission();
+            if (admittedIn < 0) {
+                notPermitted.incrementAndGet();
+                throw new HadoopClientException("Hadoop circuit breaker open");
+            }
+            T result;
+            try {
+                result = call.get();
+            } catch (HttpServerErrorException | ResourceAccessException failure) {
+                onResult(admittedIn, false);
+                throw failure;
+            } catch (RuntimeException other) {
+                onResult(admittedIn, true);
+                throw other;
+            }
+            onResult(admittedIn, true);
+            return result;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * @return the generation the call is admitted in, or -1 if it is refused.
+     */
+    private synchronized long tryAcquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        switch (state) {
+            case CLOSED:
+                return generation;
+            case HALF_OPEN:
+                if (halfOpenPermits > 0) {
+                    halfOpenPermits--;
+                    return generation;
+                }
+                return -1;
+            default:
+                return -1;
+        }
+    }
+
+    private synchronized void onResult(long admittedIn, boolean success) {
+        if (admittedIn != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (!success) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (windowCalls == windowSize) {
+            if (!window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = success;
+        if (!success) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+        if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        log.info("Hadoop circuit breaker {} -> {}", state, newState);
+        state = newState;
+        generation++;
+        transitions.get(newState).incrementAndGet();
+        switch (newState) {
+            case OPEN:
+                openedAt = System.nanoTime();
+                break;
+            case HALF_OPEN:
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+                break;
+            case CLOSED:
+                windowIndex = 0;
+                windowCalls = 0;
+                windowFailures = 0;
+                break;
+        }
+    }
+
+    @Override
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public long getTransitionCount(State state) {
+        return transitions.get(state).get();
+    }
+
+    @Override
+    public long getNotPermittedCount() {
+        return notPermitted.get();
+    }
+
+    @Override
+    public int getAvailableConcurrentCalls() {
+        return bulkhead.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (State s : State.values()) {
+            Gauge.builder("techtest.hadoop.breaker.state", this, breaker -> breaker.getState() == s ? 1 : 0)
+                    .description("1 for the current circuit breaker state, 0 otherwise")
+                    .tag("state", s.name())
+                    .register(registry);
+            FunctionCounter.builder("techtest.hadoop.breaker.transitions", transitions.get(s), AtomicLong::get)
+                    .description("Circuit breaker transitions into the state")
+                    .tag("state", s.name())
+                    .register(registry);
+        }
+        FunctionCounter.builder("techtest.hadoop.breaker.not.permitted", notPermitted, AtomicLong::get)
+                .description("Hadoop calls refused by the breaker or the bulkhead")
+                .register(registry);
+        Gauge.builder("techtest.hadoop.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free bulkhead slots for Hadoop calls")
+                .register(registry);
+    }
+}
@@ -0,0 +1,110 @@
+package com.db.dataplatform.techtest.client.component.impl;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.component.HadoopCircuitBreaker;
+import com.db.dataplatform.techtest.client.component.HadoopClient;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Recover;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.URI_BIGDATA;
+
+/**
+ * Single push to the Hadoop endpoint. Gateway timeouts are retried with randomised exponential backoff.
+ * Every attempt goes through the circuit breaker, so retries stop as soon as the breaker opens.
+ * Each attempt is timed and tagged with its outcome.
+ */
+@Slf4j
+@Service
+public class HadoopClientImpl implements HadoopClient, MeterBinder {
+
+    public static final String HADOOP_PUSH_TIMER = "techtest.hadoop.push";
+    private static final String[] OUTCOMES = {"success", "gateway_timeout", "not_permitted", "error"};
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final HadoopCircuitBreaker hadoopCircuitBreaker;
+    private final Map<String, Timer> pushTimers = new ConcurrentHashMap<>();
+
+    /**
+     * The RestTemplate is injected lazily: building it needs the meter registry, and the registry binds this bean.
+     */
+    public HadoopClientImpl(@Lazy RestTemplate restTemplate, ObjectMapper objectMapper, HadoopCircuitBreaker hadoopCircuitBreaker) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.hadoopCircuitBreaker = hadoopCircuitBreaker;
+    }
+
+    @Override
+    @Retryable(include = HttpServerErrorException.GatewayTimeout.class,
+            maxAttemptsExpression = "${techtest.hadoop.retry.max-attempts:5}",
+            backoff = @Backoff(random = true,
+                    delayExpression = "${techtest.hadoop.retry.initial-delay-ms:500}",
+                    multiplierExpression = "${techtest.hadoop.retry.multiplier:2}",
+                    maxDelayExpression = "${techtest.hadoop.retry.max-delay-ms:10000}"))
+    public boolean pushBigData(DataEnvelope dataEnvelope) throws HadoopClientException {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(dataEnvelope);
+        } catch (JsonProcessingException jsonException) {
+            log.error("Unable to serialise data {} for Hadoop", dataEnvelope.getDataHeader().getName(), jsonException);
+            return false;
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            hadoopCircuitBreaker.execute(() -> restTemplate.postForEntity(URI_BIGDATA.toString(), payload, Void.class));
+            outcome = "success";
+        } catch (HttpServerErrorException.GatewayTimeout timeout) {
+            outcome = "gateway_timeout";
+            throw timeout;
+        } catch (HadoopClientException notPermitted) {
+            outcome = "not_permitted";
+            throw notPermitted;
+        } finally {
+            Timer pushTimer = pushTimers.get(outcome);
+            if (pushTimer != null) {
+                pushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        log.info("Pushed data {} to {}", dataEnvelope.getDataHeader().getName(), URI_BIGDATA);
+        return true;
+    }
+
+    @Recover
+    public boolean recover(HttpServerErrorException.GatewayTimeout timeout, DataEnvelope dataEnvelope) {
+        log.warn("Hadoop push for data {} still timing out after retries", dataEnvelope.getDataHeader().getName());
+        return false;
+    }
+
+    @Recover
+    public boolean recover(HadoopClientException notPermitted, DataEnvelope dataEnvelope) throws HadoopClientException {
+        throw notPermitted;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String outcome : OUTCOMES) {
+            pushTimers.put(outcome, Timer.builder(HADOOP_PUSH_TIMER)
+                    .description("Single Hadoop push attempts")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
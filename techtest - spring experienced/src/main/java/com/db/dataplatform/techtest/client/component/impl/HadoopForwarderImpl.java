@@ -0,0 +1,167 @@
+package com.db.dataplatform.techtest.client.component.impl;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.component.HadoopClient;
+import com.db.dataplatform.techtest.client.component.HadoopForwarder;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands Hadoop pushes to a fixed pool of workers through a bounded queue. Callers never wait for Hadoop:
+ * when the queue is full the envelope is rejected straight away.
+ * Envelopes are dropped without a call while the Hadoop circuit breaker is open.
+ */
+@Slf4j
+@Service
+public class HadoopForwarderImpl implements HadoopForwarder, MeterBinder {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final HadoopClient hadoopClient;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+
+    public HadoopForwarderImpl(HadoopClient hadoopClient,
+                               @Value("${techtest.hadoop.forwarder.worker-threads:4}") int workerThreads,
+                               @Value("${techtest.hadoop.forwarder.queue-capacity:1000}") int queueCapacity) {
+        this.hadoopClient = hadoopClient;
+        this.executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("hadoop-forwarder-"));
+    }
+
+    /**
+     * @param dataEnvelope the envelope to push to Hadoop from a worker thread.
+     * @return false if the queue is full and the envelope was not accepted.
+     */
+    @Override
+    public boolean forward(DataEnvelope dataEnvelope) {
+        return enqueue(dataEnvelope, new CompletableFuture<>());
+    }
+
+    /**
+     * @param dataEnvelope the envelope to push to Hadoop from a worker thread.
+     * @return completes with the outcome of the push once a worker has run it, or exceptionally with
+     * {@link RejectedExecutionException} if the queue is full and {@link HadoopClientException} if the breaker refused it.
+     */
+    @Override
+    public CompletableFuture<Boolean> submit(DataEnvelope dataEnvelope) {
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        if (!enqueue(dataEnvelope, outcome)) {
+            outcome.completeExceptionally(new RejectedExecutionException("Hadoop forwarding queue full"));
+        }
+        return outcome;
+    }
+
+    private boolean enqueue(DataEnvelope dataEnvelope, CompletableFuture<Boolean> outcome) {
+        try {
+            executor.execute(() -> push(dataEnvelope, outcome));
+            return true;
+        } catch (RejectedExecutionException rejectedException) {
+            rejected.incrementAndGet();
+            log.warn("Hadoop forwarding queue full, rejected data {}", dataEnvelope.getDataHeader().getName());
+            return false;
+        }
+    }
+
+    private void push(DataEnvelope dataEnvelope, CompletableFuture<Boolean> outcome) {
+        inFlight.incrementAndGet();
+        try {
+            boolean pushed = hadoopClient.pushBigData(dataEnvelope);
+            if (pushed) {
+                forwarded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+            outcome.complete(pushed);
+        } catch (HadoopClientException notPermitted) {
+            shortCircuited.incrementAndGet();
+            log.warn("Hadoop push skipped for data {}: {}", dataEnvelope.getDataHeader().getName(), notPermitted.getMessage());
+            outcome.completeExceptionally(notPermitted);
+        } catch (RuntimeException pushException) {
+            failed.incrementAndGet();
+            log.error("Hadoop push failed for data {}", dataEnvelope.getDataHeader().getName(), pushException);
+            outcome.completeExceptionally(pushException);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public long getShortCircuitedCount() {
+        return shortCircuited.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("techtest.hadoop.forwarder.queue.depth", this, HadoopForwarderImpl::getQueueDepth)
+                .description("Envelopes waiting for a forwarder worker")
+                .register(registry);
+        Gauge.builder("techtest.hadoop.forwarder.in.flight", this, HadoopForwarderImpl::getInFlight)
+                .description("Hadoop pushes currently running")
+                .register(registry);
+        forwarderCounter(registry, "forwarded", forwarded);
+        forwarderCounter(registry, "failed", failed);
+        forwarderCounter(registry, "rejected", rejected);
+        forwarderCounter(registry, "short_circuited", shortCircuited);
+    }
+
+    private static void forwarderCounter(MeterRegistry registry, String outcome, AtomicLong count) {
+        FunctionCounter.builder("techtest.hadoop.forwarder.envelopes", count, AtomicLong::get)
+                .description("Envelopes handled by the Hadoop forwarder")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Hadoop forwarder stopped with {} envelopes still queued", executor.shutdownNow().size());
+        }
+    }
+}
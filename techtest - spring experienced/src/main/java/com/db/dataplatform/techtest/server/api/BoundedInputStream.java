@@ -0,0 +1,59 @@
+package com.db.dataplatform.techtest.server.api;
+
+import com.db.dataplatform.techtest.server.exception.DecodedSizeLimitExceededException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails a read once more than {@code limit} bytes have come out of the wrapped stream. Put around a decoder it
+ * stops a small compressed payload from inflating without bound.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+
+    public BoundedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) throws DecodedSizeLimitExceededException {
+        count += n;
+        if (count > limit) {
+            throw new DecodedSizeLimitExceededException(limit);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.db.dataplatform.techtest.server.api;
+
+import com.db.dataplatform.techtest.server.api.model.ContentCoding;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Request bodies sent with a Content-Encoding of gzip or lz4 are inflated as the controller reads them, and reading
+ * fails once more than {@code maxDecodedBytes} have come out, so a small compressed request cannot inflate without
+ * bound. Any other Content-Encoding is refused with 415.
+ * <p>
+ * Responses are encoded with the first of {@code responseCodings} the caller accepts. The first {@code minResponseBytes}
+ * are held back so that small responses, which gain little from compression, go out as they are.
+ */
+@Slf4j
+public class ContentEncodingFilter extends OncePerRequestFilter {
+
+    private static final String SUPPORTED_CODINGS = Arrays.stream(ContentCoding.values())
+            .map(ContentCoding::getToken)
+            .collect(Collectors.joining(", "));
+
+    private final long maxDecodedBytes;
+    private final int minResponseBytes;
+    private final List<ContentCoding> responseCodings;
+
+    public ContentEncodingFilter(long maxDecodedBytes, int minResponseBytes, List<ContentCoding> responseCodings) {
+        this.maxDecodedBytes = maxDecodedBytes;
+        this.minResponseBytes = minResponseBytes;
+        this.responseCodings = responseCodings;
+    }
+
+    /**
+     * Streaming responses are written after the first dispatch has returned, so the encoder is finished on the
+     * async dispatch that ends them.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            finish(request, WebUtils.getNativeResponse(response, EncodingResponse.class));
+            return;
+        }
+
+        Optional<ContentCoding> requestCoding;
+        try {
+            String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+            requestCoding = contentEncoding == null ? Optional.empty() : ContentCoding.fromToken(contentEncoding);
+        } catch (IllegalArgumentException e) {
+            log.info("Rejecting request to {}: {}", request.getRequestURI(), e.getMessage());
+            response.setHeader(HttpHeaders.ACCEPT_ENCODING, SUPPORTED_CODINGS);
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), e.getMessage());
+            return;
+        }
+        HttpServletRequest decodedRequest = requestCoding
+                .<HttpServletRequest>map(coding -> new DecodingRequest(request, coding, maxDecodedBytes))
+                .orElse(request);
+
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        EncodingResponse encodingResponse = ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING), responseCodings)
+                .map(coding -> new EncodingResponse(response, coding, minResponseBytes))
+                .orElse(null);
+
+        filterChain.doFilter(decodedRequest, encodingResponse == null ? response : encodingResponse);
+        finish(decodedRequest, encodingResponse);
+    }
+
+    private static void finish(HttpServletRequest request, EncodingResponse encodingResponse) throws IOException {
+        if (encodingResponse != null && !request.isAsyncStarted()) {
+            encodingResponse.finish();
+        }
+    }
+
+    /**
+     * Hides Content-Encoding and Content-Length from the rest of the chain, since neither describes the body it reads.
+     */
+    private static class DecodingRequest extends HttpServletRequestWrapper {
+
+        private final ContentCoding coding;
+        private final long maxDecodedBytes;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        DecodingRequest(HttpServletRequest request, ContentCoding coding, long maxDecodedBytes) {
+            super(request);
+            this.coding = coding;
+            this.maxDecodedBytes = maxDecodedBytes;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new DecodedInputStream(new BoundedInputStream(coding.decode(super.getInputStream()), maxDecodedBytes));
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                        encoding == null ? StandardCharsets.ISO_8859_1.name() : encoding));
+            }
+            return reader;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return hidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(DecodingRequest::hidden);
+            return Collections.enumeration(names);
+        }
+
+        private static boolean hidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static class DecodedInputStream extends ServletInputStream {
+
+        private final InputStream in;
+        private boolean finished;
+
+        DecodedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads of encoded request bodies are not supported");
+        }
+    }
+
+    /**
+     * Content-Length set by the application describes the unencoded body, so it is dropped. A response that sets its
+     * own Content-Encoding or sends an error is left alone.
+     */
+    private static class EncodingResponse extends HttpServletResponseWrapper {
+
+        private final ContentCoding coding;
+        private final int minBytes;
+        private EncodingOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean bypass;
+
+        EncodingResponse(HttpServletResponse response, ContentCoding coding, int minBytes) {
+            super(response);
+            this.coding = coding;
+            this.minBytes = minBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        private EncodingOutputStream stream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new EncodingOutputStream(getResponse().getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                bypassIfEncoded(name);
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                bypassIfEncoded(name);
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        private void bypassIfEncoded(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                bypass = true;
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            bypass = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            bypass = true;
+            super.sendError(sc);
+        }
+
+        /**
+         * Committing the response before the coding is decided would send the headers without it.
+         */
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream == null || outputStream.decided()) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (outputStream != null) {
+                outputStream.resetBuffer();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (outputStream != null) {
+                outputStream.resetBuffer();
+            }
+            super.reset();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream == null) {
+                return;
+            }
+            if (bypass) {
+                outputStream.flush();
+            } else {
+                outputStream.close();
+            }
+        }
+
+        private class EncodingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream raw;
+            private ByteArrayOutputStream buffer;
+            private OutputStream target;
+            private boolean closed;
+
+            EncodingOutputStream(ServletOutputStream raw) {
+                this.raw = raw;
+                this.buffer = new ByteArrayOutputStream(minBytes);
+            }
+
+            boolean decided() {
+                return target != null;
+            }
+
+            void resetBuffer() {
+                if (buffer != null) {
+                    buffer.reset();
+                }
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (closed) {
+                    throw new IOException("Response stream is closed");
+                }
+                if (target == null) {
+                    if (!bypass && buffer.size() + len < minBytes) {
+                        buffer.write(b, off, len);
+                        return;
+                    }
+                    decide(!bypass);
+                }
+                target.write(b, off, len);
+            }
+
+            private void decide(boolean encode) throws IOException {
+                if (encode) {
+                    EncodingResponse.super.setHeader(HttpHeaders.CONTENT_ENCODING, coding.getToken());
+                    target = coding.encode(raw);
+                } else {
+                    target = raw;
+                }
+                buffer.writeTo(target);
+                buffer = null;
+            }
+
+            /**
+             * Ignored until the coding is decided, so that flushing a small response does not commit it.
+             */
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (target == null) {
+                    decide(false);
+                }
+                target.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return raw.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                raw.setWriteListener(writeListener);
+            }
+        }
+    }
+}
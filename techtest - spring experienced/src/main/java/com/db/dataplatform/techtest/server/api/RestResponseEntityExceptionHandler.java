@@ -1,14 +1,19 @@
 package com.db.dataplatform.techtest.server.api;
 
+import com.db.dataplatform.techtest.server.exception.DataNameTakenException;
+import com.db.dataplatform.techtest.server.exception.DecodedSizeLimitExceededException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import javax.validation.ConstraintViolationException;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class RestResponseEntityExceptionHandler
@@ -23,4 +28,57 @@ public class RestResponseEntityExceptionHandler
         return handleExceptionInternal(ex, bodyOfResponse,
                 new HttpHeaders(), HttpStatus.CONFLICT, request);
     }
+
+    /**
+     * An async endpoint whose executor queue is full; the caller should back off and retry.
+     */
+    @ExceptionHandler(value = {RejectedExecutionException.class})
+    protected ResponseEntity<Object> handleRejected(Exception ex, WebRequest request) {
+
+        return handleExceptionInternal(ex, "Server is busy, retry later",
+                new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
+    /**
+     * A streamed body, such as a chunked upload, that runs past its configured limit.
+     */
+    @ExceptionHandler(value = {DecodedSizeLimitExceededException.class})
+    protected ResponseEntity<Object> handleTooLarge(Exception ex, WebRequest request) {
+
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.PAYLOAD_TOO_LARGE, request);
+    }
+
+    /**
+     * A body pushed under a name another body already holds.
+     */
+    @ExceptionHandler(value = {DataNameTakenException.class})
+    protected ResponseEntity<Object> handleNameTaken(Exception ex, WebRequest request) {
+
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    /**
+     * An update made conditional on a version the row has already moved past.
+     */
+    @ExceptionHandler(value = {OptimisticLockingFailureException.class})
+    protected ResponseEntity<Object> handleStaleVersion(Exception ex, WebRequest request) {
+
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.PRECONDITION_FAILED, request);
+    }
+
+    /**
+     * A compressed body that inflates past the configured limit is refused as too large rather than as malformed.
+     */
+    @Override
+    protected ResponseEntity<Object> handleHttpMessageNotReadable(HttpMessageNotReadableException ex,
+                                                                  HttpHeaders headers, HttpStatus status, WebRequest request) {
+        if (ex.getMostSpecificCause() instanceof DecodedSizeLimitExceededException) {
+            return handleExceptionInternal(ex, ex.getMostSpecificCause().getMessage(),
+                    headers, HttpStatus.PAYLOAD_TOO_LARGE, request);
+        }
+        return super.handleHttpMessageNotReadable(ex, headers, status, request);
+    }
 }
@@ -0,0 +1,68 @@
+package com.db.dataplatform.techtest.server.api;
+
+import com.db.dataplatform.techtest.server.api.model.ContentCoding;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import javax.servlet.DispatcherType;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Tomcat closes a keep-alive connection after 100 requests by default, which makes pooled clients reconnect
+ * every 100 calls. Boot 2.3 has no property for it, so it is set on the connector here.
+ * <p>
+ * Boot's own server.compression only gzips responses, so request and response content codings for the data server
+ * are handled by {@link ContentEncodingFilter} instead.
+ * <p>
+ * Envelopes can also be exchanged as Smile, binary JSON, selected by Content-Type and Accept. The converter is bound
+ * by the same mapper configuration as JSON, so both formats carry identical fields.
+ */
+@Configuration
+public class ServerHttpConfiguration {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> keepAliveCustomizer(
+            @Value("${techtest.server.http.max-keep-alive-requests:10000}") int maxKeepAliveRequests) {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            if (connector.getProtocolHandler() instanceof AbstractHttp11Protocol) {
+                ((AbstractHttp11Protocol<?>) connector.getProtocolHandler()).setMaxKeepAliveRequests(maxKeepAliveRequests);
+            }
+        });
+    }
+
+    /**
+     * Boot adds converter beans to the MVC converters; the client's RestTemplate uses it too.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ContentEncodingFilter> contentEncodingFilter(
+            @Value("${techtest.server.http.max-decoded-bytes:67108864}") long maxDecodedBytes,
+            @Value("${techtest.server.http.compression-min-bytes:1024}") int minResponseBytes,
+            @Value("${techtest.server.http.response-encodings:lz4,gzip}") String[] responseEncodings) {
+        List<ContentCoding> responseCodings = Arrays.stream(responseEncodings)
+                .map(ContentCoding::fromToken)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+        FilterRegistrationBean<ContentEncodingFilter> registration =
+                new FilterRegistrationBean<>(new ContentEncodingFilter(maxDecodedBytes, minResponseBytes, responseCodings));
+        registration.addUrlPatterns("/dataserver/*");
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registration;
+    }
+}
@@ -0,0 +1,57 @@
+package com.db.dataplatform.techtest.server.api.controller;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.AsyncServer;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.db.dataplatform.techtest.server.api.controller.ServerController.APPLICATION_SMILE_VALUE;
+import static com.db.dataplatform.techtest.server.api.controller.ServerController.CHECKSUM_ALGORITHM_HEADER;
+
+/**
+ * The push and block type query endpoints of {@link ServerController} with the work handed to {@link AsyncServer}.
+ * The container thread is released as soon as the request is parsed and the response is written when the future
+ * completes, so a burst of slow commits no longer exhausts the Tomcat pool. A full executor answers 503.
+ */
+@Slf4j
+@Controller
+@RequestMapping("/dataserver/async")
+@RequiredArgsConstructor
+@Validated
+public class AsyncServerController {
+
+    private final AsyncServer asyncServer;
+
+    @PostMapping(value = "/pushdata", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public CompletableFuture<ResponseEntity<Boolean>> pushData(@Valid @RequestBody DataEnvelope dataEnvelope,
+                                                               @RequestHeader(value = CHECKSUM_ALGORITHM_HEADER, defaultValue = "MD5") ChecksumAlgorithm algorithm) {
+
+        log.info("Data envelope received: {}", dataEnvelope.getDataHeader().getName());
+        return asyncServer.saveDataEnvelope(dataEnvelope, algorithm)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/data/{blockType}", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public CompletableFuture<ResponseEntity<List<DataBodyEntity>>> getData(@PathVariable BlockTypeEnum blockType) {
+
+        log.info("Get request received for block type: {}", blockType);
+        return asyncServer.getDataByBlockType(blockType)
+                .thenApply(data -> data.isEmpty()
+                        ? new ResponseEntity<>(null, HttpStatus.NOT_FOUND)
+                        : ResponseEntity.ok(data));
+    }
+}
@@ -1,26 +1,36 @@
 package com.db.dataplatform.techtest.server.api.controller;
 
-import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.component.Server;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
-import javax.xml.bind.DatatypeConverter;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,20 +41,101 @@ import java.util.Optional;
 @Validated
 public class ServerController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String NEXT_PAGE_HEADER = "X-Next-After";
+    public static final String CHECKSUM_ALGORITHM_HEADER = "X-Checksum-Algorithm";
+    public static final String CHECKSUM_HEADER = "X-Checksum";
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10000;
+
     private final Server server;
+    private final ObjectMapper objectMapper;
 
-    @PostMapping(value = "/pushdata", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Boolean> pushData(@Valid @RequestBody DataEnvelope dataEnvelope) throws IOException, NoSuchAlgorithmException {
+    /**
+     * The envelope checksum is verified with the algorithm named in the {@value #CHECKSUM_ALGORITHM_HEADER} header, MD5 by default.
+     * This and the batch and block type endpoints read and write JSON, or Smile when Content-Type or Accept ask for
+     * {@value #APPLICATION_SMILE_VALUE}.
+     */
+    @PostMapping(value = "/pushdata", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<Boolean> pushData(@Valid @RequestBody DataEnvelope dataEnvelope,
+                                            @RequestHeader(value = CHECKSUM_ALGORITHM_HEADER, defaultValue = "MD5") ChecksumAlgorithm algorithm) {
 
         log.info("Data envelope received: {}", dataEnvelope.getDataHeader().getName());
-        boolean checksumPass = server.saveDataEnvelope(dataEnvelope);
+        boolean checksumPass = server.saveDataEnvelope(dataEnvelope, algorithm);
 
         log.info("Data envelope persisted. Attribute name: {}", dataEnvelope.getDataHeader().getName());
         return ResponseEntity.ok(checksumPass);
     }
 
-   @GetMapping(value = "/data/{blockType}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<DataBodyEntity>> getData(@PathVariable BlockTypeEnum blockType) {
+    /**
+     * Accepts many envelopes in one request. Checksums are validated per envelope and the result list
+     * reports, in request order, whether each envelope was persisted.
+     */
+    @PostMapping(value = "/pushdata/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<List<BatchItemResult>> pushDataBatch(@RequestBody @Size(max = MAX_BATCH_SIZE) List<@Valid DataEnvelope> dataEnvelopes,
+                                                               @RequestHeader(value = CHECKSUM_ALGORITHM_HEADER, defaultValue = "MD5") ChecksumAlgorithm algorithm) {
+
+        log.info("Data envelope batch received, size: {}", dataEnvelopes.size());
+        List<BatchItemResult> results = server.saveDataEnvelopes(dataEnvelopes, algorithm);
+
+        log.info("Data envelope batch processed, size: {}", dataEnvelopes.size());
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Raw body of any size, hashed and stored in fixed size chunks as it is read, so it is never held whole.
+     * The checksum travels in the {@value #CHECKSUM_HEADER} header since there is no envelope to carry it.
+     */
+    @PostMapping(value = "/pushdata/chunked/{name}/{blockType}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Boolean> pushChunkedData(@PathVariable String name, @PathVariable BlockTypeEnum blockType,
+                                                   @RequestHeader(CHECKSUM_HEADER) String checksum,
+                                                   @RequestHeader(value = CHECKSUM_ALGORITHM_HEADER, defaultValue = "MD5") ChecksumAlgorithm algorithm,
+                                                   InputStream body) throws IOException {
+
+        log.info("Chunked data received: {}", name);
+        boolean checksumPass = server.saveChunkedData(new DataHeader(name, blockType), algorithm, checksum, body);
+
+        log.info("Chunked data processed. Attribute name: {}", name);
+        return ResponseEntity.ok(checksumPass);
+    }
+
+    /**
+     * Streams a body stored by {@link #pushChunkedData} chunk by chunk, with its length and stored checksum in the headers.
+     */
+    @GetMapping(value = "/data/chunked/{name}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> getChunkedData(@PathVariable String name) {
+
+        log.info("Chunked get request received for name: {}", name);
+        Optional<ChunkedBodyEntity> chunkedBody = server.getChunkedDataByName(name);
+        if (!chunkedBody.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        ChunkedBodyEntity found = chunkedBody.get();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(found.getBodyBytes())
+                .header(CHECKSUM_ALGORITHM_HEADER, found.getChecksumAlgorithm().name())
+                .header(CHECKSUM_HEADER, found.getChecksum())
+                .body(outputStream -> server.streamChunkedData(found, outputStream));
+    }
+
+    /**
+     * Without {@code limit} the whole block type is returned. With {@code limit} a keyset page of rows whose
+     * DATA_STORE_ID is greater than {@code after} is returned, and a full page carries the cursor for the next
+     * page in the {@value #NEXT_PAGE_HEADER} header. An empty page is an empty 200 response.
+     */
+   @GetMapping(value = "/data/{blockType}", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<List<DataBodyEntity>> getData(@PathVariable BlockTypeEnum blockType,
+                                                        @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit,
+                                                        @RequestParam(defaultValue = "0") long after) {
+
+        if (limit != null) {
+            return getDataPage(blockType, after, limit);
+        }
 
         log.info("Get request received for block type: {}", blockType);
         List<DataBodyEntity> data = server.getDataByBlockType(blockType);
@@ -54,25 +145,93 @@ public class ServerController {
         return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
     }
 
+    private ResponseEntity<List<DataBodyEntity>> getDataPage(BlockTypeEnum blockType, long after, int limit) {
+        log.info("Page request received for block type: {} after: {} limit: {}", blockType, after, limit);
+        List<DataBodyEntity> page = server.getDataByBlockType(blockType, after, limit);
+        if (page.size() < limit) {
+            return ResponseEntity.ok(page);
+        }
+        Long next = page.get(page.size() - 1).getDataStoreId();
+        return ResponseEntity.ok()
+                .header(NEXT_PAGE_HEADER, String.valueOf(next))
+                .body(page);
+    }
+
+    /**
+     * Newline delimited variant of {@link #getData(BlockTypeEnum, Integer, long)}. Rows are written to the response as they are
+     * read from the database cursor, so memory stays bounded and an empty result is an empty 200 response.
+     */
+    @GetMapping(value = "/data/{blockType}", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamData(@PathVariable BlockTypeEnum blockType) {
+
+        log.info("Streaming get request received for block type: {}", blockType);
+        ObjectWriter writer = objectMapper.writerFor(DataBodyEntity.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                server.streamDataByBlockType(blockType, entry -> {
+                    try {
+                        writer.writeValue(generator, entry);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Deletes the data stored under the name. Its body is only removed once no other name shares it.
+     */
+    @DeleteMapping(value = "/delete/{name}")
+    public ResponseEntity<Boolean> deleteData(@PathVariable String name) {
+
+        log.info("Delete request received for name: {}", name);
+        if (server.deleteDataByName(name)) {
+            return ResponseEntity.ok(true);
+        }
+        return new ResponseEntity<>(false, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Changes only the block type of the header; the body is not read. The new version comes back as the ETag,
+     * and sending it as If-Match makes the next update apply only if nobody else updated the name in between.
+     * An If-Match that is not a version this endpoint hands out can never match, so it fails the precondition.
+     */
     @PutMapping(value = "/update/{name}/{newBlockType}")
-    public ResponseEntity<Boolean> patchHeaderBlockType(@PathVariable String name, @PathVariable String newBlockType) throws NoSuchAlgorithmException, IOException {
-        boolean resp = false;
-        log.info("Get request received for block name: {} Get request received for block type", name, newBlockType);
-        Optional<DataBodyEntity> data = server.getDataByBlockByName(name);
-        if(data.isPresent()) {
-            DataHeader dh = new DataHeader(name, BlockTypeEnum.valueOf(newBlockType));
-            String dbStr = data.get().getDataBody();
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            md.digest(dbStr.getBytes());
-            byte[] digest = md.digest();
-            String myHash = DatatypeConverter
-                    .printHexBinary(digest).toUpperCase();
-            DataBody db = new DataBody(dbStr);
-            DataEnvelope de = new DataEnvelope(dh, db,  myHash);
-            server.saveDataEnvelope(de);
-            return ResponseEntity.ok(resp);
+    public ResponseEntity<Boolean> patchHeaderBlockType(@PathVariable String name, @PathVariable String newBlockType,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("Update request received for block name: {} new block type: {}", name, newBlockType);
+        Long expectedVersion;
+        try {
+            expectedVersion = parseVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            log.warn("If-Match {} for block name: {} is not a version", ifMatch, name);
+            return new ResponseEntity<>(false, HttpStatus.PRECONDITION_FAILED);
+        }
+        Optional<Long> version = server.updateBlockType(name, BlockTypeEnum.valueOf(newBlockType), expectedVersion);
+        if (version.isPresent()) {
+            return ResponseEntity.ok()
+                    .eTag(String.valueOf(version.get()))
+                    .body(true);
+        }
+        return new ResponseEntity<>(false, HttpStatus.NOT_FOUND);
+    }
+
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
         }
-        return new ResponseEntity<>(resp, HttpStatus.NOT_FOUND);
+        return Long.valueOf(tag.replace("\"", ""));
     }
 
 }
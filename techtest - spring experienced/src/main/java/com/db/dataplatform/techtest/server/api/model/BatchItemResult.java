@@ -0,0 +1,22 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@JsonSerialize(as = BatchItemResult.class)
+@JsonDeserialize(as = BatchItemResult.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class BatchItemResult {
+
+    private int index;
+
+    private String name;
+
+    private BatchItemStatus status;
+
+}
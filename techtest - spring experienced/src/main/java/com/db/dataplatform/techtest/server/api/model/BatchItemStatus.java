@@ -0,0 +1,7 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+public enum BatchItemStatus {
+    PERSISTED,
+    CHECKSUM_FAILED,
+    PERSISTENCE_FAILED
+}
@@ -0,0 +1,11 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+/**
+ * Algorithms accepted in the X-Checksum-Algorithm header. MD5 is the default; the others are cheaper
+ * non-cryptographic checks for integrity only.
+ */
+public enum ChecksumAlgorithm {
+    MD5,
+    CRC32,
+    XXHASH64
+}
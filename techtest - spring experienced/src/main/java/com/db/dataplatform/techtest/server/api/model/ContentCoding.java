@@ -0,0 +1,124 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings accepted in the Content-Encoding and Accept-Encoding headers. GZIP compresses better, LZ4 (the
+ * LZ4 frame format) costs far less CPU. Both stream, so neither side holds a whole payload in memory to code it.
+ */
+public enum ContentCoding {
+
+    GZIP("gzip") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+    LZ4("lz4") {
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new LZ4FrameInputStream(in);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Closing the returned stream finishes the encoding and closes {@code out}.
+     */
+    public abstract OutputStream encode(OutputStream out) throws IOException;
+
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    /**
+     * Empty for "identity"; unknown tokens are an error.
+     */
+    public static Optional<ContentCoding> fromToken(String token) {
+        String value = token.trim().toLowerCase(Locale.ROOT);
+        if (value.isEmpty() || "identity".equals(value)) {
+            return Optional.empty();
+        }
+        for (ContentCoding coding : values()) {
+            if (coding.token.equals(value)) {
+                return Optional.of(coding);
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content coding: " + token);
+    }
+
+    /**
+     * Picks the first of {@code preferred} that the Accept-Encoding header allows. Codings listed with q=0 are
+     * refused, and "*" allows any coding not listed explicitly.
+     */
+    public static Optional<ContentCoding> negotiate(String acceptEncoding, List<ContentCoding> preferred) {
+        if (acceptEncoding == null) {
+            return Optional.empty();
+        }
+        boolean wildcard = false;
+        boolean[] accepted = new boolean[values().length];
+        boolean[] listed = new boolean[values().length];
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean allowed = parts.length < 2 || qualityAllows(parts[1]);
+            if ("*".equals(name)) {
+                wildcard = allowed;
+                continue;
+            }
+            for (ContentCoding coding : values()) {
+                if (coding.token.equals(name)) {
+                    listed[coding.ordinal()] = true;
+                    accepted[coding.ordinal()] = allowed;
+                }
+            }
+        }
+        for (ContentCoding coding : preferred) {
+            if (accepted[coding.ordinal()] || (wildcard && !listed[coding.ordinal()])) {
+                return Optional.of(coding);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean qualityAllows(String parameter) {
+        String[] pair = parameter.split("=");
+        if (pair.length != 2 || !"q".equalsIgnoreCase(pair[0].trim())) {
+            return true;
+        }
+        try {
+            return Double.parseDouble(pair[1].trim()) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.db.dataplatform.techtest.server.cache;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the full result list per block type. Entries are weighed by the approximate heap size of
+ * their bodies, expire after a fixed time and are evicted by writers to the same block type. Cached lists are
+ * unmodifiable because they are shared between requests.
+ */
+@Component
+public class BlockTypeResultCache implements MeterBinder {
+
+    private static final int ROW_OVERHEAD_BYTES = 256;
+
+    private final boolean enabled;
+    private final Cache<BlockTypeEnum, List<DataBodyEntity>> cache;
+
+    public BlockTypeResultCache(@Value("${techtest.cache.block-type.enabled:true}") boolean enabled,
+                                @Value("${techtest.cache.block-type.max-weight-bytes:67108864}") long maxWeightBytes,
+                                @Value("${techtest.cache.block-type.ttl-seconds:30}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher(BlockTypeResultCache::weigh)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public List<DataBodyEntity> get(BlockTypeEnum blockType, Function<BlockTypeEnum, List<DataBodyEntity>> loader) {
+        if (!enabled) {
+            return loader.apply(blockType);
+        }
+        return cache.get(blockType, key -> Collections.unmodifiableList(loader.apply(key)));
+    }
+
+    public void evict(BlockTypeEnum blockType) {
+        cache.invalidate(blockType);
+    }
+
+    /**
+     * For writers that move a row between block types without reading which one it left.
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static int weigh(BlockTypeEnum blockType, List<DataBodyEntity> data) {
+        long weight = 0;
+        for (DataBodyEntity entry : data) {
+            String body = entry.getDataBody();
+            weight += ROW_OVERHEAD_BYTES + (body == null ? 0 : 2L * body.length());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "blockTypeResults");
+    }
+}
@@ -0,0 +1,35 @@
+package com.db.dataplatform.techtest.server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Bounded map from DATA_HEADER.NAME to DATA_STORE_ID, so repeated lookups by name resolve to a primary key fetch.
+ */
+@Component
+public class DataStoreIdCache {
+
+    private final Cache<String, Long> cache;
+
+    public DataStoreIdCache(@Value("${techtest.cache.name-index.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public Optional<Long> get(String name) {
+        return Optional.ofNullable(cache.getIfPresent(name));
+    }
+
+    public void put(String name, Long dataStoreId) {
+        cache.put(name, dataStoreId);
+    }
+
+    public void evict(String name) {
+        cache.invalidate(name);
+    }
+}
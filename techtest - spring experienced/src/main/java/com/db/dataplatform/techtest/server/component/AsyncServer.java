@@ -0,0 +1,17 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link Server} operations that run on the server's own executors, so the calling thread returns at once.
+ */
+public interface AsyncServer {
+    CompletableFuture<Boolean> saveDataEnvelope(DataEnvelope envelope, ChecksumAlgorithm algorithm);
+    CompletableFuture<List<DataBodyEntity>> getDataByBlockType(BlockTypeEnum blockType);
+}
@@ -0,0 +1,9 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+
+public interface ChecksumCalculator {
+    String checksum(ChecksumAlgorithm algorithm, String body);
+    boolean matches(ChecksumAlgorithm algorithm, String body, String expectedHex);
+    StreamingChecksum streaming(ChecksumAlgorithm algorithm);
+}
@@ -1,16 +1,34 @@
 package com.db.dataplatform.techtest.server.component;
 
+import com.db.dataplatform.techtest.server.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface Server {
     boolean saveDataEnvelope(DataEnvelope envelope) throws IOException, NoSuchAlgorithmException;
+    boolean saveDataEnvelope(DataEnvelope envelope, ChecksumAlgorithm algorithm);
+    boolean verifyChecksum(DataEnvelope envelope, ChecksumAlgorithm algorithm);
+    void persistDataEnvelope(DataEnvelope envelope);
+    List<BatchItemResult> saveDataEnvelopes(List<DataEnvelope> envelopes, ChecksumAlgorithm algorithm);
     List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType);
+    List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType, long after, int limit);
+    void streamDataByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer);
     Optional<DataBodyEntity> getDataByBlockByName(String blocName);
+    boolean deleteDataByName(String name);
+    Optional<Long> updateBlockType(String name, BlockTypeEnum blockType, Long expectedVersion);
+    boolean saveChunkedData(DataHeader dataHeader, ChecksumAlgorithm algorithm, String checksum, InputStream body) throws IOException;
+    Optional<ChunkedBodyEntity> getChunkedDataByName(String name);
+    void streamChunkedData(ChunkedBodyEntity chunkedBody, OutputStream outputStream) throws IOException;
 }
@@ -0,0 +1,10 @@
+package com.db.dataplatform.techtest.server.component;
+
+/**
+ * Checksum of a body that is fed in pieces as it is read, so the body never has to be held whole.
+ * Single use: {@link #hex()} finishes it.
+ */
+public interface StreamingChecksum {
+    void update(byte[] bytes, int offset, int length);
+    String hex();
+}
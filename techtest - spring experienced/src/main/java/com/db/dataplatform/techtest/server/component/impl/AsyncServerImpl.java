@@ -0,0 +1,55 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.AsyncServer;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.executor.MeasuredExecutor;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.db.dataplatform.techtest.server.executor.ServerExecutorConfiguration.HASHING_EXECUTOR;
+import static com.db.dataplatform.techtest.server.executor.ServerExecutorConfiguration.PERSISTENCE_EXECUTOR;
+
+/**
+ * Verifies checksums on the hashing executor and reads and writes the database on the persistence executor. An
+ * envelope whose checksum fails never takes a persistence thread. A full executor fails the future with
+ * RejectedExecutionException.
+ */
+@Service
+public class AsyncServerImpl implements AsyncServer {
+
+    private final Server server;
+    private final Executor hashingExecutor;
+    private final Executor persistenceExecutor;
+
+    public AsyncServerImpl(Server server,
+                           @Qualifier(HASHING_EXECUTOR) MeasuredExecutor hashingExecutor,
+                           @Qualifier(PERSISTENCE_EXECUTOR) MeasuredExecutor persistenceExecutor) {
+        this.server = server;
+        this.hashingExecutor = hashingExecutor::execute;
+        this.persistenceExecutor = persistenceExecutor::execute;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveDataEnvelope(DataEnvelope envelope, ChecksumAlgorithm algorithm) {
+        return CompletableFuture.supplyAsync(() -> server.verifyChecksum(envelope, algorithm), hashingExecutor)
+                .thenCompose(passed -> passed
+                        ? CompletableFuture.supplyAsync(() -> {
+                            server.persistDataEnvelope(envelope);
+                            return true;
+                        }, persistenceExecutor)
+                        : CompletableFuture.completedFuture(false));
+    }
+
+    @Override
+    public CompletableFuture<List<DataBodyEntity>> getDataByBlockType(BlockTypeEnum blockType) {
+        return CompletableFuture.supplyAsync(() -> server.getDataByBlockType(blockType), persistenceExecutor);
+    }
+}
@@ -0,0 +1,261 @@
+package com.db.dataplatform.techtest.server.component.impl;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.StreamingChecksum;
+import net.jpountz.xxhash.StreamingXXHash64;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+import org.springframework.stereotype.Component;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+/**
+ * Hashes the UTF-8 bytes of a body. Each thread keeps its own digest, encode buffer and hex buffer, so hashing a
+ * body allocates nothing beyond the returned string, and {@link #matches} allocates nothing at all.
+ */
+@Component
+public class ChecksumCalculatorImpl implements ChecksumCalculator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final XXHashFactory XX_HASH_FACTORY = XXHashFactory.fastestInstance();
+    private static final XXHash64 XX_HASH_64 = XX_HASH_FACTORY.hash64();
+    private static final long XX_HASH_SEED = 0L;
+
+    private final ThreadLocal<State> states = ThreadLocal.withInitial(State::new);
+
+    @Override
+    public String checksum(ChecksumAlgorithm algorithm, String body) {
+        State state = states.get();
+        int length = digest(state, algorithm, body);
+        return hex(state.digest, length, state.hex);
+    }
+
+    /**
+     * Compares the digest of the body with a hex checksum in either case, without building the hex string.
+     */
+    @Override
+    public boolean matches(ChecksumAlgorithm algorithm, String body, String expectedHex) {
+        if (expectedHex == null) {
+            return false;
+        }
+        State state = states.get();
+        int length = digest(state, algorithm, body);
+        if (expectedHex.length() != 2 * length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = state.digest[i] & 0xFF;
+            if (nibble(expectedHex.charAt(2 * i)) != b >> 4 || nibble(expectedHex.charAt(2 * i + 1)) != (b & 0xF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Yields the same hex as {@link #checksum} does for a body whose UTF-8 bytes are fed to it.
+     */
+    @Override
+    public StreamingChecksum streaming(ChecksumAlgorithm algorithm) {
+        switch (algorithm) {
+            case CRC32:
+                return new Crc32Checksum();
+            case XXHASH64:
+                return new XxHash64Checksum();
+            default:
+                return new Md5Checksum();
+        }
+    }
+
+    private int digest(State state, ChecksumAlgorithm algorithm, String body) {
+        byte[] bytes = state.encode(body);
+        int size = state.encodedLength;
+        switch (algorithm) {
+            case CRC32:
+                state.crc32.reset();
+                state.crc32.update(bytes, 0, size);
+                return state.putLong(state.crc32.getValue() << 32, 4);
+            case XXHASH64:
+                return state.putLong(XX_HASH_64.hash(bytes, 0, size, XX_HASH_SEED), 8);
+            default:
+                state.md5.update(bytes, 0, size);
+                try {
+                    return state.md5.digest(state.digest, 0, state.digest.length);
+                } catch (DigestException digestException) {
+                    throw new IllegalStateException(digestException);
+                }
+        }
+    }
+
+    private static String hex(byte[] digest, int length, char[] hex) {
+        for (int i = 0; i < length; i++) {
+            int b = digest[i];
+            hex[2 * i] = HEX[(b >> 4) & 0xF];
+            hex[2 * i + 1] = HEX[b & 0xF];
+        }
+        return new String(hex, 0, 2 * length);
+    }
+
+    private static String hex(long value, int length) {
+        byte[] digest = new byte[length];
+        for (int i = 0; i < length; i++) {
+            digest[i] = (byte) (value >>> (8 * (length - 1 - i)));
+        }
+        return hex(digest, length, new char[2 * length]);
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException algException) {
+            throw new IllegalStateException(algException);
+        }
+    }
+
+    private static int nibble(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static final class State {
+
+        private final MessageDigest md5;
+        private final CRC32 crc32 = new CRC32();
+        private final byte[] digest = new byte[16];
+        private final char[] hex = new char[32];
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private char[] chars = new char[INITIAL_BUFFER_SIZE];
+        private int encodedLength;
+
+        private State() {
+            md5 = md5();
+        }
+
+        private int putLong(long value, int length) {
+            for (int i = 0; i < length; i++) {
+                digest[i] = (byte) (value >>> (56 - 8 * i));
+            }
+            return length;
+        }
+
+        /**
+         * UTF-8 encodes into the reused buffer. Lone surrogates become '?' like String.getBytes does.
+         * Buffers grown for unusually large bodies are not kept.
+         */
+        private byte[] encode(String body) {
+            int length = body.length();
+            char[] in = chars;
+            if (in.length < length) {
+                in = new char[length];
+                if (length <= MAX_RETAINED_BUFFER_SIZE) {
+                    chars = in;
+                }
+            }
+            body.getChars(0, length, in, 0);
+            byte[] out = buffer;
+            if (out.length < 3 * length) {
+                out = new byte[3 * length];
+                if (out.length <= MAX_RETAINED_BUFFER_SIZE) {
+                    buffer = out;
+                }
+            }
+            int pos = 0;
+            int i = 0;
+            while (i < length && in[i] < 0x80) {
+                out[pos++] = (byte) in[i++];
+            }
+            for (; i < length; i++) {
+                char c = in[i];
+                if (c < 0x80) {
+                    out[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    out[pos++] = (byte) (0xC0 | (c >> 6));
+                    out[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(in[i + 1])) {
+                        int codePoint = Character.toCodePoint(c, in[++i]);
+                        out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                        out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                        out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                        out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                    } else {
+                        out[pos++] = '?';
+                    }
+                } else {
+                    out[pos++] = (byte) (0xE0 | (c >> 12));
+                    out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            encodedLength = pos;
+            return out;
+        }
+    }
+
+    private static final class Md5Checksum implements StreamingChecksum {
+
+        private final MessageDigest md5 = md5();
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            md5.update(bytes, offset, length);
+        }
+
+        @Override
+        public String hex() {
+            byte[] digest = md5.digest();
+            return ChecksumCalculatorImpl.hex(digest, digest.length, new char[2 * digest.length]);
+        }
+    }
+
+    private static final class Crc32Checksum implements StreamingChecksum {
+
+        private final CRC32 crc32 = new CRC32();
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            crc32.update(bytes, offset, length);
+        }
+
+        @Override
+        public String hex() {
+            return ChecksumCalculatorImpl.hex(crc32.getValue(), 4);
+        }
+    }
+
+    private static final class XxHash64Checksum implements StreamingChecksum {
+
+        private final StreamingXXHash64 xxHash64 = XX_HASH_FACTORY.newStreamingHash64(XX_HASH_SEED);
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            xxHash64.update(bytes, offset, length);
+        }
+
+        /**
+         * The native variant holds memory outside the heap until it is closed.
+         */
+        @Override
+        public String hex() {
+            try {
+                return ChecksumCalculatorImpl.hex(xxHash64.getValue(), 8);
+            } finally {
+                xxHash64.close();
+            }
+        }
+    }
+}
@@ -1,80 +1,324 @@
 package com.db.dataplatform.techtest.server.component.impl;
 
+import com.db.dataplatform.techtest.server.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.server.api.model.BatchItemStatus;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataDigest;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.service.ChunkedBodyService;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataHeaderService;
+import com.db.dataplatform.techtest.server.service.GroupCommitWriter;
+import com.db.dataplatform.techtest.server.service.WalIngestService;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
 import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.mapper.EnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.metrics.IngestMetrics;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
-import javax.xml.bind.DatatypeConverter;
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.db.dataplatform.techtest.server.service.impl.DataContentServiceImpl.CONTENT_CHECKSUM_ALGORITHM;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ServerImpl implements Server {
 
+    public static final String SERVER_TIMER = "techtest.server";
+
     private final DataBodyService dataBodyServiceImpl;
-    private final ModelMapper modelMapper;
+    private final EnvelopeEntityMapper envelopeEntityMapper;
+    private final ChecksumCalculator checksumCalculator;
+    private final IngestMetrics ingestMetrics;
+    private final GroupCommitWriter groupCommitWriter;
+    private final WalIngestService walIngestService;
+    private final ChunkedBodyService chunkedBodyService;
+    private final DataHeaderService dataHeaderService;
 
     /**
      * @param envelope
      * @return true if there is a match with the client provided checksum.
      */
     @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
     public boolean saveDataEnvelope(DataEnvelope envelope) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            md.digest(envelope.getDataBody().toString().getBytes());
-            byte[] digest = md.digest();
-            String myHash = DatatypeConverter
-                    .printHexBinary(digest).toUpperCase();
-            if(envelope.getMd5CheckSum().equals(myHash)) {
-                log.warn("MD5 checksum failed for data name: {}", envelope.getDataHeader().getName());
-                return false;
-            }
-        } catch(NoSuchAlgorithmException algException) {
-            log.error("Error in saveDataEnvelope ", algException);
+        return saveDataEnvelope(envelope, ChecksumAlgorithm.MD5);
+    }
+
+    /**
+     * @param envelope
+     * @param algorithm algorithm the client used for the checksum carried in the envelope.
+     * @return true if there is a match with the client provided checksum.
+     */
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public boolean saveDataEnvelope(DataEnvelope envelope, ChecksumAlgorithm algorithm) {
+        if (!checksumPasses(envelope, algorithm)) {
             return false;
         }
 
         // Save to persistence.
+        persistDataEnvelope(envelope);
+        return true;
+    }
+
+    /**
+     * The checksum half of {@link #saveDataEnvelope(DataEnvelope, ChecksumAlgorithm)}, for callers that run it apart from persistence.
+     * @return true if there is a match with the client provided checksum.
+     */
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public boolean verifyChecksum(DataEnvelope envelope, ChecksumAlgorithm algorithm) {
+        return checksumPasses(envelope, algorithm);
+    }
+
+    /**
+     * The persistence half of {@link #saveDataEnvelope(DataEnvelope, ChecksumAlgorithm)}; the checksum is not checked again.
+     */
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public void persistDataEnvelope(DataEnvelope envelope) {
         persist(envelope);
         log.info("Data persisted successfully, data name: {}", envelope.getDataHeader().getName());
-        return true;
+    }
+
+    /**
+     * Validates every checksum individually, then persists all passing envelopes together. Envelopes that would not
+     * change what is stored under their name are reported as persisted without being written. With the write-ahead
+     * log enabled the others are logged one by one, as single pushes are, so they are ordered with them and replayed,
+     * and a name with logged changes still to apply is never taken as unchanged.
+     * @param envelopes
+     * @param algorithm algorithm the client used for the checksums carried in the envelopes.
+     * @return one result per envelope, in request order.
+     */
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public List<BatchItemResult> saveDataEnvelopes(List<DataEnvelope> envelopes, ChecksumAlgorithm algorithm) {
+        log.info("Persisting batch of {} data envelopes", envelopes.size());
+        BatchItemStatus[] statuses = new BatchItemStatus[envelopes.size()];
+        List<Integer> passedIndexes = new ArrayList<>(envelopes.size());
+        for (int i = 0; i < envelopes.size(); i++) {
+            if (checksumPasses(envelopes.get(i), algorithm)) {
+                passedIndexes.add(i);
+            } else {
+                statuses[i] = BatchItemStatus.CHECKSUM_FAILED;
+            }
+        }
+
+        boolean walEnabled = walIngestService.isEnabled();
+        Map<String, DataDigest> stored = getDigests(passedIndexes, envelopes);
+        List<Integer> changedIndexes = new ArrayList<>(passedIndexes.size());
+        for (int i : passedIndexes) {
+            DataEnvelope envelope = envelopes.get(i);
+            String name = envelope.getDataHeader().getName();
+            boolean pending = walEnabled && walIngestService.isPending(name);
+            if (!pending && isUnchanged(stored.get(name), envelope)) {
+                statuses[i] = BatchItemStatus.PERSISTED;
+            } else {
+                changedIndexes.add(i);
+            }
+        }
+
+        if (walEnabled) {
+            changedIndexes.forEach(i -> statuses[i] = logBatchItem(envelopes.get(i)));
+        } else if (!changedIndexes.isEmpty()) {
+            List<DataBodyEntity> changedEntities = new ArrayList<>(changedIndexes.size());
+            changedIndexes.forEach(i -> changedEntities.add(toEntity(envelopes.get(i))));
+            List<Boolean> persisted = dataBodyServiceImpl.saveDataBodies(changedEntities);
+            for (int i = 0; i < changedIndexes.size(); i++) {
+                statuses[changedIndexes.get(i)] = persisted.get(i) ? BatchItemStatus.PERSISTED : BatchItemStatus.PERSISTENCE_FAILED;
+            }
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(envelopes.size());
+        for (int i = 0; i < envelopes.size(); i++) {
+            results.add(new BatchItemResult(i, envelopes.get(i).getDataHeader().getName(), statuses[i]));
+        }
+        return results;
     }
 
     @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
     public List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType) {
         return dataBodyServiceImpl.getDataByBlockType(blockType);
     }
 
     @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType, long after, int limit) {
+        return dataBodyServiceImpl.getDataByBlockType(blockType, after, limit);
+    }
+
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public void streamDataByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer) {
+        dataBodyServiceImpl.streamDataByBlockType(blockType, consumer);
+    }
+
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
     public Optional<DataBodyEntity> getDataByBlockByName(String blocName) {
         return dataBodyServiceImpl.getDataByBlockName(blocName);
     }
 
+    /**
+     * With the write-ahead log enabled the delete is logged too, and applied after the pushes logged before it, so a
+     * replay does not bring the name back. A chunked body never goes through the log, so it is deleted directly.
+     */
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public boolean deleteDataByName(String name) {
+        if (chunkedBodyService.deleteChunkedBody(name)) {
+            return true;
+        }
+        if (walIngestService.isEnabled()) {
+            return walIngestService.delete(name);
+        }
+        return dataBodyServiceImpl.deleteDataBody(name);
+    }
+
+    /**
+     * Only the header changes, so the body is neither re-read nor re-hashed. With the write-ahead log enabled the
+     * update is logged and applied in order, like a delete.
+     */
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public Optional<Long> updateBlockType(String name, BlockTypeEnum blockType, Long expectedVersion) {
+        if (walIngestService.isEnabled()) {
+            return walIngestService.updateBlockType(name, blockType, expectedVersion);
+        }
+        return dataHeaderService.updateBlockType(name, blockType, expectedVersion);
+    }
+
+    /**
+     * Large bodies bypass the envelope path: they are hashed and stored chunk by chunk as they are read,
+     * straight to the database rather than through the group commit writer or the write-ahead log.
+     * @return true if there is a match with the client provided checksum.
+     */
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public boolean saveChunkedData(DataHeader dataHeader, ChecksumAlgorithm algorithm, String checksum, InputStream body) throws IOException {
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setName(dataHeader.getName());
+        dataHeaderEntity.setBlocktype(dataHeader.getBlockType());
+        boolean passed = chunkedBodyService.saveChunkedBody(dataHeaderEntity, algorithm, checksum, body);
+        ingestMetrics.checksum(algorithm, passed);
+        return passed;
+    }
+
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public Optional<ChunkedBodyEntity> getChunkedDataByName(String name) {
+        return chunkedBodyService.getChunkedBodyByName(name);
+    }
+
+    @Override
+    @Timed(value = SERVER_TIMER, histogram = true)
+    public void streamChunkedData(ChunkedBodyEntity chunkedBody, OutputStream outputStream) throws IOException {
+        chunkedBodyService.streamChunkedBody(chunkedBody, outputStream);
+    }
+
+    private boolean checksumPasses(DataEnvelope envelope, ChecksumAlgorithm algorithm) {
+        String body = envelope.getDataBody().getDataBody();
+        ingestMetrics.payload(body);
+        boolean passed = checksumCalculator.matches(algorithm, body, envelope.getMd5CheckSum());
+        ingestMetrics.checksum(algorithm, passed);
+        if (!passed) {
+            log.warn("{} checksum failed for data name: {}", algorithm, envelope.getDataHeader().getName());
+        }
+        return passed;
+    }
+
+    /**
+     * A push that would not change what is stored under its name, typically a producer retry, returns here without a
+     * write. With the write-ahead log enabled the envelope is only logged here and applied to the database later, and
+     * a name with logged changes still to apply is always logged, since what is stored is not what it ends up as.
+     */
     private void persist(DataEnvelope envelope) {
-        log.info("Persisting data with attribute name: {}", envelope.getDataHeader().getName());
-        DataHeaderEntity dataHeaderEntity = modelMapper.map(envelope.getDataHeader(), DataHeaderEntity.class);
+        String name = envelope.getDataHeader().getName();
+        boolean walEnabled = walIngestService.isEnabled();
+        if (!walEnabled || !walIngestService.isPending(name)) {
+            List<DataDigest> stored = dataBodyServiceImpl.getDigests(Collections.singletonList(name));
+            if (!stored.isEmpty() && isUnchanged(stored.get(0), envelope)) {
+                log.info("Data with attribute name: {} is already stored unchanged", name);
+                return;
+            }
+        }
+        log.info("Persisting data with attribute name: {}", name);
+        if (walEnabled) {
+            walIngestService.append(envelope);
+        } else {
+            saveData(toEntity(envelope));
+        }
+    }
+
+    /**
+     * A log that is full or closed fails only this envelope; the producer retries it.
+     */
+    private BatchItemStatus logBatchItem(DataEnvelope envelope) {
+        try {
+            walIngestService.append(envelope);
+            return BatchItemStatus.PERSISTED;
+        } catch (RuntimeException e) {
+            log.warn("Failed to log data name: {}", envelope.getDataHeader().getName(), e);
+            return BatchItemStatus.PERSISTENCE_FAILED;
+        }
+    }
+
+    private Map<String, DataDigest> getDigests(List<Integer> indexes, List<DataEnvelope> envelopes) {
+        Map<String, DataDigest> digests = new HashMap<>();
+        if (indexes.isEmpty()) {
+            return digests;
+        }
+        List<String> names = new ArrayList<>(indexes.size());
+        indexes.forEach(i -> names.add(envelopes.get(i).getDataHeader().getName()));
+        dataBodyServiceImpl.getDigests(names).forEach(digest -> digests.put(digest.getName(), digest));
+        return digests;
+    }
 
-        DataBodyEntity dataBodyEntity = modelMapper.map(envelope.getDataBody(), DataBodyEntity.class);
-        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+    /**
+     * Compares the block type first, so the body is only hashed when that already matches.
+     */
+    private boolean isUnchanged(DataDigest stored, DataEnvelope envelope) {
+        if (stored == null || stored.getBlocktype() != envelope.getDataHeader().getBlockType()) {
+            return false;
+        }
+        boolean unchanged = stored.getContentChecksum().equals(
+                checksumCalculator.checksum(CONTENT_CHECKSUM_ALGORITHM, envelope.getDataBody().getDataBody()));
+        if (unchanged) {
+            ingestMetrics.unchanged();
+        }
+        return unchanged;
+    }
 
-        saveData(dataBodyEntity);
+    private DataBodyEntity toEntity(DataEnvelope envelope) {
+        return envelopeEntityMapper.toEntity(envelope);
     }
 
+    /**
+     * Goes through the group commit writer, so concurrent single saves share a transaction. A body that is already
+     * stored is referenced rather than inserted again.
+     */
     private void saveData(DataBodyEntity dataBodyEntity) {
-        dataBodyServiceImpl.saveDataBody(dataBodyEntity);
+        groupCommitWriter.write(dataBodyEntity);
     }
 
 }
@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server.exception;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * A header insert refused by UK_DATA_HEADER because another body already holds the name.
+ */
+public class DataNameTakenException extends DataIntegrityViolationException {
+
+    public DataNameTakenException(final String name, final Throwable cause) {
+        super("Data name is already taken: " + name, cause);
+    }
+}
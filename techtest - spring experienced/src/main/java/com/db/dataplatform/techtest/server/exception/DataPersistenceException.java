@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server.exception;
+
+import org.springframework.dao.NonTransientDataAccessException;
+
+/**
+ * A row that was not committed, reported to a caller that did not run the transaction itself.
+ */
+public class DataPersistenceException extends NonTransientDataAccessException {
+
+    public DataPersistenceException(final String message) {
+        super(message);
+    }
+}
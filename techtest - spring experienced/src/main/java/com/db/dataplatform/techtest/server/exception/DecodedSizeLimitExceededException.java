@@ -0,0 +1,14 @@
+package com.db.dataplatform.techtest.server.exception;
+
+import java.io.IOException;
+
+/**
+ * A compressed payload inflated past the configured limit. It is an IOException so that it surfaces from the
+ * stream read that crossed the limit, wherever the reader happens to be.
+ */
+public class DecodedSizeLimitExceededException extends IOException {
+
+    public DecodedSizeLimitExceededException(final long limit) {
+        super("Decoded payload exceeds " + limit + " bytes");
+    }
+}
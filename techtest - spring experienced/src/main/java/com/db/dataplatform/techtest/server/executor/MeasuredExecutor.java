@@ -0,0 +1,65 @@
+package com.db.dataplatform.techtest.server.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed pool with a bounded queue that times every task twice: how long it waited in the queue and how long it ran.
+ * A full queue rejects the task with {@link RejectedExecutionException} rather than running it on the caller, since
+ * the caller is usually a container thread that the pool exists to free.
+ * <p>
+ * It deliberately does not implement {@link Executor}: Boot backs off its applicationTaskExecutor, which MVC uses
+ * for streaming responses, as soon as any Executor bean exists. Pass {@code executor::execute} where one is needed.
+ */
+public class MeasuredExecutor {
+
+    public static final String QUEUED_TIMER = "techtest.server.executor.queued";
+    public static final String EXECUTION_TIMER = "techtest.server.executor.execution";
+
+    private final ThreadPoolExecutor pool;
+    private final Timer queued;
+    private final Timer execution;
+
+    public MeasuredExecutor(String name, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queued = Timer.builder(QUEUED_TIMER)
+                .description("Time tasks waited for a thread")
+                .tag("executor", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.execution = Timer.builder(EXECUTION_TIMER)
+                .description("Time tasks ran once they had a thread")
+                .tag("executor", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(pool, name, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public void execute(Runnable command) {
+        long submitted = System.nanoTime();
+        pool.execute(() -> {
+            long started = System.nanoTime();
+            queued.record(started - submitted, TimeUnit.NANOSECONDS);
+            try {
+                command.run();
+            } finally {
+                execution.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,32 @@
+package com.db.dataplatform.techtest.server.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Executors the async endpoints hand work to, sized separately: checksum hashing is CPU bound and needs about one
+ * thread per core, while persistence waits on the database and is bounded by its connection pool.
+ */
+@Configuration
+public class ServerExecutorConfiguration {
+
+    public static final String HASHING_EXECUTOR = "hashingExecutor";
+    public static final String PERSISTENCE_EXECUTOR = "persistenceExecutor";
+
+    @Bean(name = HASHING_EXECUTOR, destroyMethod = "shutdown")
+    public MeasuredExecutor hashingExecutor(MeterRegistry meterRegistry,
+                                            @Value("${techtest.server.async.hashing.threads:0}") int threads,
+                                            @Value("${techtest.server.async.hashing.queue-capacity:1000}") int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new MeasuredExecutor("hashing", size, queueCapacity, meterRegistry);
+    }
+
+    @Bean(name = PERSISTENCE_EXECUTOR, destroyMethod = "shutdown")
+    public MeasuredExecutor persistenceExecutor(MeterRegistry meterRegistry,
+                                                @Value("${techtest.server.async.persistence.threads:10}") int threads,
+                                                @Value("${techtest.server.async.persistence.queue-capacity:1000}") int queueCapacity) {
+        return new MeasuredExecutor("persistence", threads, queueCapacity, meterRegistry);
+    }
+}
@@ -0,0 +1,8 @@
+package com.db.dataplatform.techtest.server.mapper;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+
+public interface EnvelopeEntityMapper {
+    DataBodyEntity toEntity(DataEnvelope envelope);
+}
@@ -1,6 +1,7 @@
 package com.db.dataplatform.techtest.server.mapper;
 
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -8,6 +9,7 @@ import org.springframework.context.annotation.Configuration;
 public class ServerMapperConfiguration {
 
     @Bean
+    @ConditionalOnProperty(name = "techtest.mapper.model-mapper.enabled", havingValue = "true")
     public ModelMapper createModelMapperBean() {
         ModelMapper modelMapper = new ModelMapper();
         modelMapper.getConfiguration()
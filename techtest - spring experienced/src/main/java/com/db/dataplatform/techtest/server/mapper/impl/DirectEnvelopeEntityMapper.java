@@ -0,0 +1,28 @@
+package com.db.dataplatform.techtest.server.mapper.impl;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.EnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Plain field copies, no reflection. Default unless techtest.mapper.model-mapper.enabled is true.
+ */
+@Component
+@ConditionalOnProperty(name = "techtest.mapper.model-mapper.enabled", havingValue = "false", matchIfMissing = true)
+public class DirectEnvelopeEntityMapper implements EnvelopeEntityMapper {
+
+    @Override
+    public DataBodyEntity toEntity(DataEnvelope envelope) {
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setName(envelope.getDataHeader().getName());
+        dataHeaderEntity.setBlocktype(envelope.getDataHeader().getBlockType());
+
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataBody(envelope.getDataBody().getDataBody());
+        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        return dataBodyEntity;
+    }
+}
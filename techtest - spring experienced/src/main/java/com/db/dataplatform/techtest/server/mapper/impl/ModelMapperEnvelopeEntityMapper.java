@@ -0,0 +1,30 @@
+package com.db.dataplatform.techtest.server.mapper.impl;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.EnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * The original reflective mapping, kept as an opt-in fallback behind techtest.mapper.model-mapper.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "techtest.mapper.model-mapper.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ModelMapperEnvelopeEntityMapper implements EnvelopeEntityMapper {
+
+    private final ModelMapper modelMapper;
+
+    @Override
+    public DataBodyEntity toEntity(DataEnvelope envelope) {
+        DataHeaderEntity dataHeaderEntity = modelMapper.map(envelope.getDataHeader(), DataHeaderEntity.class);
+
+        DataBodyEntity dataBodyEntity = modelMapper.map(envelope.getDataBody(), DataBodyEntity.class);
+        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        return dataBodyEntity;
+    }
+}
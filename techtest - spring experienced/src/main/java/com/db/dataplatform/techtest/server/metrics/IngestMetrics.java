@@ -0,0 +1,85 @@
+package com.db.dataplatform.techtest.server.metrics;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counters and summaries on the ingest path, registered once so recording is a lookup-free increment.
+ */
+@Component
+public class IngestMetrics {
+
+    public static final String CHECKSUM_COUNTER = "techtest.checksum";
+    public static final String PAYLOAD_SUMMARY = "techtest.payload.size";
+    public static final String UNCHANGED_COUNTER = "techtest.ingest.unchanged";
+
+    private final Map<ChecksumAlgorithm, Counter> checksumPassed = new EnumMap<>(ChecksumAlgorithm.class);
+    private final Map<ChecksumAlgorithm, Counter> checksumFailed = new EnumMap<>(ChecksumAlgorithm.class);
+    private final DistributionSummary payloadSize;
+    private final Counter unchanged;
+
+    public IngestMetrics(MeterRegistry meterRegistry) {
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            checksumPassed.put(algorithm, checksumCounter(meterRegistry, algorithm, "pass"));
+            checksumFailed.put(algorithm, checksumCounter(meterRegistry, algorithm, "fail"));
+        }
+        payloadSize = DistributionSummary.builder(PAYLOAD_SUMMARY)
+                .description("Size of received data bodies")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        unchanged = Counter.builder(UNCHANGED_COUNTER)
+                .description("Pushes answered without a write because the name already held the same body and block type")
+                .register(meterRegistry);
+    }
+
+    public void checksum(ChecksumAlgorithm algorithm, boolean passed) {
+        (passed ? checksumPassed : checksumFailed).get(algorithm).increment();
+    }
+
+    public void payload(String body) {
+        payloadSize.record(body == null ? 0 : utf8Length(body));
+    }
+
+    public void unchanged() {
+        unchanged.increment();
+    }
+
+    /**
+     * Length of the body encoded as UTF-8, counted without encoding it.
+     */
+    static long utf8Length(String body) {
+        long bytes = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < body.length() && Character.isLowSurrogate(body.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate is encoded as '?'.
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static Counter checksumCounter(MeterRegistry meterRegistry, ChecksumAlgorithm algorithm, String result) {
+        return Counter.builder(CHECKSUM_COUNTER)
+                .description("Checksum verifications of received envelopes")
+                .tag("algorithm", algorithm.name())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
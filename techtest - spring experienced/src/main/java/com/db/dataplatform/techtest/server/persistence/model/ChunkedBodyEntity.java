@@ -0,0 +1,75 @@
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A body stored as DATA_BODY_CHUNK rows rather than in DATA_STORE. The row is written once all chunks are in,
+ * so its presence means the body is complete; the chunks themselves are only read and written through JDBC.
+ */
+@Entity
+@Table(name = "DATA_CHUNKED_BODY")
+@Setter
+@Getter
+public class ChunkedBodyEntity {
+
+    @Id
+    @Column(name = "DATA_HEADER_ID")
+    private Long dataHeaderId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "DATA_HEADER_ID")
+    private DataHeaderEntity dataHeaderEntity;
+
+    @Column(name = "BODY_BYTES")
+    private long bodyBytes;
+
+    @Column(name = "CHUNK_COUNT")
+    private int chunkCount;
+
+    @Column(name = "CHECKSUM_ALGORITHM")
+    @Enumerated(EnumType.STRING)
+    private ChecksumAlgorithm checksumAlgorithm;
+
+    @Column(name = "CHECKSUM")
+    private String checksum;
+
+    @Column(name = "CREATED_TIMESTAMP")
+    private Instant createdTimestamp;
+
+    @PrePersist
+    public void setTimestamps() {
+        if (createdTimestamp == null) {
+            createdTimestamp = Instant.now();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChunkedBodyEntity that = (ChunkedBodyEntity) o;
+        return bodyBytes == that.bodyBytes && Objects.equals(dataHeaderId, that.dataHeaderId) && Objects.equals(checksum, that.checksum);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dataHeaderId, bodyBytes, checksum);
+    }
+}
@@ -1,5 +1,6 @@
 package com.db.dataplatform.techtest.server.persistence.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -10,10 +11,12 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
 import javax.persistence.PrePersist;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import java.time.Instant;
 import java.util.Objects;
 
@@ -24,7 +27,7 @@ import java.util.Objects;
 public class DataBodyEntity {
 
     @Id
-    @SequenceGenerator(name = "dataStoreSequenceGenerator", sequenceName = "SEQ_DATA_STORE", allocationSize = 1)
+    @SequenceGenerator(name = "dataStoreSequenceGenerator", sequenceName = "SEQ_DATA_STORE", allocationSize = 50)
     @GeneratedValue(generator = "dataStoreSequenceGenerator")
     @Column(name = "DATA_STORE_ID")
     private Long dataStoreId;
@@ -33,12 +36,34 @@ public class DataBodyEntity {
     @JoinColumn(name = "DATA_HEADER_ID")
     private DataHeaderEntity dataHeaderEntity;
 
-    @Column(name = "DATA_BODY")
+    /**
+     * The stored body, shared with every other row that has the same content.
+     */
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "CONTENT_CHECKSUM", insertable = false, updatable = false)
+    @JsonIgnore
+    private DataContentEntity dataContent;
+
+    @Column(name = "CONTENT_CHECKSUM")
+    @JsonIgnore
+    private String contentChecksum;
+
+    /**
+     * Body of a row that has not been written yet; the write path resolves it to {@link #contentChecksum}.
+     */
+    @Transient
     private String dataBody;
 
     @Column(name = "CREATED_TIMESTAMP")
     private Instant createdTimestamp;
 
+    public String getDataBody() {
+        if (dataBody == null && dataContent != null) {
+            return dataContent.getDataBody();
+        }
+        return dataBody;
+    }
+
     @PrePersist
     public void setTimestamps() {
         if (createdTimestamp == null) {
@@ -51,11 +76,11 @@ public class DataBodyEntity {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DataBodyEntity that = (DataBodyEntity) o;
-        return Objects.equals(dataStoreId, that.dataStoreId) && Objects.equals(dataHeaderEntity, that.dataHeaderEntity) && Objects.equals(dataBody, that.dataBody);
+        return Objects.equals(dataStoreId, that.dataStoreId) && Objects.equals(dataHeaderEntity, that.dataHeaderEntity) && Objects.equals(getDataBody(), that.getDataBody());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(dataStoreId, dataHeaderEntity, dataBody);
+        return Objects.hash(dataStoreId, dataHeaderEntity, getDataBody());
     }
 }
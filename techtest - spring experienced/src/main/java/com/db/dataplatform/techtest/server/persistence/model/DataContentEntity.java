@@ -0,0 +1,49 @@
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A body stored once and shared by every DATA_STORE row whose body has the same MD5, counted in REF_COUNT.
+ * Rows are only read through JPA; they are created, counted and removed with atomic statements in
+ * {@link com.db.dataplatform.techtest.server.service.DataContentService}.
+ */
+@Entity
+@Table(name = "DATA_CONTENT")
+@Setter
+@Getter
+public class DataContentEntity {
+
+    @Id
+    @Column(name = "CHECKSUM")
+    private String checksum;
+
+    @Column(name = "DATA_BODY")
+    private String dataBody;
+
+    @Column(name = "REF_COUNT")
+    private long refCount;
+
+    @Column(name = "CREATED_TIMESTAMP")
+    private Instant createdTimestamp;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DataContentEntity that = (DataContentEntity) o;
+        return Objects.equals(checksum, that.checksum);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(checksum);
+    }
+}
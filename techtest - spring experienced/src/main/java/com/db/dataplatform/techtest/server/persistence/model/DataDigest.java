@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+
+/**
+ * Name, body checksum and block type of a stored row, enough to tell whether a push would change it without
+ * loading the body.
+ */
+public interface DataDigest {
+    String getName();
+    String getContentChecksum();
+    BlockTypeEnum getBlocktype();
+}
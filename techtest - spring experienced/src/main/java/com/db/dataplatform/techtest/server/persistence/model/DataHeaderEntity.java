@@ -14,6 +14,7 @@ import javax.persistence.PrePersist;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 import java.time.Instant;
 import java.util.Objects;
 
@@ -27,7 +28,7 @@ import java.util.Objects;
 public class DataHeaderEntity {
 
     @Id
-    @SequenceGenerator(name = "dataHeaderSequenceGenerator", sequenceName = "SEQ_DATA_HEADER", allocationSize = 1)
+    @SequenceGenerator(name = "dataHeaderSequenceGenerator", sequenceName = "SEQ_DATA_HEADER", allocationSize = 50)
     @GeneratedValue(generator = "dataHeaderSequenceGenerator")
     @Column(name = "DATA_HEADER_ID")
     private Long dataHeaderId;
@@ -39,6 +40,12 @@ public class DataHeaderEntity {
     @Enumerated(EnumType.STRING)
     private BlockTypeEnum blocktype;
 
+    /**
+     * Bumped by every block type update, which can be made conditional on it.
+     */
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
 
     @Column(name = "CREATED_TIMESTAMP")
     private Instant createdTimestamp;
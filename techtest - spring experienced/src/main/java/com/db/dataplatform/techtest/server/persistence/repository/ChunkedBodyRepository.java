@@ -0,0 +1,19 @@
+package com.db.dataplatform.techtest.server.persistence.repository;
+
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChunkedBodyRepository extends JpaRepository<ChunkedBodyEntity, Long> {
+
+    /**
+     * Keyed lookup through the UK_DATA_HEADER unique index.
+     */
+    @Query("select c from ChunkedBodyEntity c join fetch c.dataHeaderEntity h where h.name = :name")
+    Optional<ChunkedBodyEntity> findByName(@Param("name") String name);
+}
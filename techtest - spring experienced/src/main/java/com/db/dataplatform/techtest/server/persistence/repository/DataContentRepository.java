@@ -0,0 +1,20 @@
+package com.db.dataplatform.techtest.server.persistence.repository;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataContentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DataContentRepository extends JpaRepository<DataContentEntity, String> {
+
+    /**
+     * Which of the given checksums already have a stored body, resolved through the PK_DATA_CONTENT index.
+     */
+    @Query("select c.checksum from DataContentEntity c where c.checksum in :checksums")
+    List<String> findExistingChecksums(@Param("checksums") Collection<String> checksums);
+}
@@ -1,10 +1,45 @@
 package com.db.dataplatform.techtest.server.persistence.repository;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DataHeaderRepository extends JpaRepository<DataHeaderEntity, Long> {
 
+    /**
+     * Which of the given names are already stored, resolved through the UK_DATA_HEADER unique index.
+     */
+    @Query("select h.name from DataHeaderEntity h where h.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    /**
+     * Only the version of the header, through the UK_DATA_HEADER unique index.
+     */
+    @Query("select h.version from DataHeaderEntity h where h.name = :name")
+    Optional<Long> findVersionByName(@Param("name") String name);
+
+    /**
+     * Sets the block type and bumps the version in one statement, without loading the header or touching DATA_STORE.
+     * @return the number of rows updated, 0 if no header has the name.
+     */
+    @Modifying
+    @Query("update DataHeaderEntity h set h.blocktype = :blockType, h.version = h.version + 1 where h.name = :name")
+    int updateBlockType(@Param("name") String name, @Param("blockType") BlockTypeEnum blockType);
+
+    /**
+     * As {@link #updateBlockType(String, BlockTypeEnum)}, but only while the header is still at the given version.
+     * @return the number of rows updated, 0 if no header has the name or its version moved on.
+     */
+    @Modifying
+    @Query("update DataHeaderEntity h set h.blocktype = :blockType, h.version = h.version + 1 where h.name = :name and h.version = :version")
+    int updateBlockType(@Param("name") String name, @Param("blockType") BlockTypeEnum blockType, @Param("version") long version);
 }
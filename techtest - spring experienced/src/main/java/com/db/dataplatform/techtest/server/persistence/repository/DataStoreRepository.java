@@ -1,10 +1,71 @@
 package com.db.dataplatform.techtest.server.persistence.repository;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataDigest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface DataStoreRepository extends JpaRepository<DataBodyEntity, Long> {
 
+    /**
+     * Filters on DATA_HEADER.BLOCKTYPE in the database (backed by IDX_DATA_HEADER_BLOCKTYPE)
+     * and fetches the header and the shared content in the same join, so only matching rows are hydrated.
+     */
+    @Query("select d from DataBodyEntity d join fetch d.dataHeaderEntity h join fetch d.dataContent where h.blocktype = :blockType")
+    List<DataBodyEntity> findByBlockType(@Param("blockType") BlockTypeEnum blockType);
+
+    /**
+     * Keyset page: rows after the given DATA_STORE_ID in key order. Only the page size of {@code pageable} is used.
+     * The block type is tested in a correlated EXISTS rather than on the joined header: with it in the join H2 plans
+     * from IDX_DATA_HEADER_BLOCKTYPE and sorts the whole block type before applying the limit. This way the only
+     * driving condition is the PK_DATA_STORE range, which starts at the cursor, already yields key order and stops
+     * at the page size, so a page reads about page size / block type share rows however deep it is.
+     */
+    @Query("select d from DataBodyEntity d join fetch d.dataHeaderEntity h join fetch d.dataContent "
+            + "where d.dataStoreId > :after "
+            + "and exists (select 1 from DataHeaderEntity b where b.dataHeaderId = h.dataHeaderId and b.blocktype = :blockType) "
+            + "order by d.dataStoreId")
+    List<DataBodyEntity> findByBlockTypeAfter(@Param("blockType") BlockTypeEnum blockType, @Param("after") long after, Pageable pageable);
+
+    /**
+     * Same query as {@link #findByBlockType(BlockTypeEnum)}, read through a JDBC cursor.
+     * Must be consumed and closed inside a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select d from DataBodyEntity d join fetch d.dataHeaderEntity h join fetch d.dataContent where h.blocktype = :blockType")
+    Stream<DataBodyEntity> streamByBlockType(@Param("blockType") BlockTypeEnum blockType);
+
+    /**
+     * Keyed lookup through the UK_DATA_HEADER unique index.
+     */
+    @Query("select d from DataBodyEntity d join fetch d.dataHeaderEntity h join fetch d.dataContent where h.name = :name")
+    Optional<DataBodyEntity> findByName(@Param("name") String name);
+
+    /**
+     * Rows by name through the UK_DATA_HEADER unique index, with their header and content, for the write path to update.
+     */
+    @Query("select d from DataBodyEntity d join fetch d.dataHeaderEntity h join fetch d.dataContent where h.name in :names")
+    List<DataBodyEntity> findByNames(@Param("names") Collection<String> names);
+
+    /**
+     * Checksum and block type by name through the UK_DATA_HEADER unique index; DATA_CONTENT is not joined.
+     */
+    @Query("select h.name as name, d.contentChecksum as contentChecksum, h.blocktype as blocktype "
+            + "from DataBodyEntity d join d.dataHeaderEntity h where h.name in :names")
+    List<DataDigest> findDigestsByNames(@Param("names") Collection<String> names);
 }
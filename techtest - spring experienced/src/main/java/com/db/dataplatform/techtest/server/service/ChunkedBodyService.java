@@ -0,0 +1,17 @@
+package com.db.dataplatform.techtest.server.service;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+public interface ChunkedBodyService {
+    boolean saveChunkedBody(DataHeaderEntity dataHeader, ChecksumAlgorithm algorithm, String expectedChecksum, InputStream body) throws IOException;
+    Optional<ChunkedBodyEntity> getChunkedBodyByName(String name);
+    void streamChunkedBody(ChunkedBodyEntity chunkedBody, OutputStream outputStream) throws IOException;
+    boolean deleteChunkedBody(String name);
+}
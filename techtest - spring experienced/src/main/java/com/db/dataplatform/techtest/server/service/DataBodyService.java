@@ -2,12 +2,20 @@ package com.db.dataplatform.techtest.server.service;
 
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataDigest;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface DataBodyService {
     void saveDataBody(DataBodyEntity dataBody);
+    List<Boolean> saveDataBodies(List<DataBodyEntity> dataBodies);
     List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType);
+    List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType, long after, int limit);
+    void streamDataByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer);
     Optional<DataBodyEntity> getDataByBlockName(String blockName);
+    boolean deleteDataBody(String blockName);
+    List<DataDigest> getDigests(Collection<String> names);
 }
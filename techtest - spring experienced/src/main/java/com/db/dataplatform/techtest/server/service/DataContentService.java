@@ -0,0 +1,11 @@
+package com.db.dataplatform.techtest.server.service;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+
+import java.util.List;
+
+public interface DataContentService {
+    String checksum(String body);
+    void acquire(List<DataBodyEntity> dataBodies);
+    void release(String checksum);
+}
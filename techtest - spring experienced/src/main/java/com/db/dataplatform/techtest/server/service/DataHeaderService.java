@@ -1,7 +1,11 @@
 package com.db.dataplatform.techtest.server.service;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 
+import java.util.Optional;
+
 public interface DataHeaderService {
     void saveHeader(DataHeaderEntity entity);
+    Optional<Long> updateBlockType(String name, BlockTypeEnum blockType, Long expectedVersion);
 }
@@ -0,0 +1,7 @@
+package com.db.dataplatform.techtest.server.service;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+
+public interface GroupCommitWriter {
+    void write(DataBodyEntity dataBody);
+}
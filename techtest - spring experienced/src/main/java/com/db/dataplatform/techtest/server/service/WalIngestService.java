@@ -0,0 +1,14 @@
+package com.db.dataplatform.techtest.server.service;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+
+import java.util.Optional;
+
+public interface WalIngestService {
+    boolean isEnabled();
+    boolean isPending(String name);
+    void append(DataEnvelope envelope);
+    boolean delete(String name);
+    Optional<Long> updateBlockType(String name, BlockTypeEnum blockType, Long expectedVersion);
+}
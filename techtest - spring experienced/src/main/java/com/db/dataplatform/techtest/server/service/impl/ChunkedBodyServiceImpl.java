@@ -0,0 +1,204 @@
+package com.db.dataplatform.techtest.server.service.impl;
+
+import com.db.dataplatform.techtest.server.api.BoundedInputStream;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.StreamingChecksum;
+import com.db.dataplatform.techtest.server.exception.DataNameTakenException;
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.ChunkedBodyRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
+import com.db.dataplatform.techtest.server.service.ChunkedBodyService;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+import static com.db.dataplatform.techtest.server.service.impl.DataBodyServiceImpl.PERSISTENCE_TIMER;
+
+/**
+ * Stores bodies too large for DATA_STORE as fixed size DATA_BODY_CHUNK rows. The body is read, hashed and written
+ * one chunk at a time, so an upload holds a single chunk buffer however large it is, and a download copies one
+ * chunk at a time from the database LOB to the response.
+ * <p>
+ * An upload runs in one transaction: the header is inserted first, so a taken name fails before the body is read,
+ * and a checksum that does not match once the last chunk is in rolls all of it back. A delete removes the chunks,
+ * the chunked body row and the header together, so the name can be used again.
+ */
+@Slf4j
+@Service
+public class ChunkedBodyServiceImpl implements ChunkedBodyService {
+
+    static final String INSERT_CHUNK = "insert into DATA_BODY_CHUNK (DATA_HEADER_ID, CHUNK_NO, CHUNK_DATA) values (?, ?, ?)";
+    static final String SELECT_CHUNKS = "select CHUNK_DATA from DATA_BODY_CHUNK where DATA_HEADER_ID = ? order by CHUNK_NO";
+    static final String DELETE_CHUNKS = "delete from DATA_BODY_CHUNK where DATA_HEADER_ID = ?";
+
+    private final DataHeaderRepository dataHeaderRepository;
+    private final ChunkedBodyRepository chunkedBodyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChecksumCalculator checksumCalculator;
+    private final int chunkBytes;
+    private final long maxBodyBytes;
+
+    public ChunkedBodyServiceImpl(DataHeaderRepository dataHeaderRepository,
+                                  ChunkedBodyRepository chunkedBodyRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ChecksumCalculator checksumCalculator,
+                                  @Value("${techtest.server.chunked.chunk-bytes:262144}") int chunkBytes,
+                                  @Value("${techtest.server.chunked.max-body-bytes:1073741824}") long maxBodyBytes) {
+        this.dataHeaderRepository = dataHeaderRepository;
+        this.chunkedBodyRepository = chunkedBodyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checksumCalculator = checksumCalculator;
+        this.chunkBytes = chunkBytes;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * @return true if the body matched the expected checksum and was stored.
+     * @throws com.db.dataplatform.techtest.server.exception.DecodedSizeLimitExceededException if the body is longer than the configured maximum.
+     * @throws DataNameTakenException if a header with the name already exists.
+     */
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    public boolean saveChunkedBody(DataHeaderEntity dataHeader, ChecksumAlgorithm algorithm, String expectedChecksum,
+                                   InputStream body) throws IOException {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                DataHeaderEntity savedHeader = insertHeader(dataHeader);
+                ChunkedBodyEntity chunkedBody = writeChunks(savedHeader, algorithm, new BoundedInputStream(body, maxBodyBytes));
+                if (!chunkedBody.getChecksum().equalsIgnoreCase(expectedChecksum)) {
+                    log.warn("{} checksum failed for chunked data name: {}", algorithm, savedHeader.getName());
+                    status.setRollbackOnly();
+                    return false;
+                }
+                chunkedBodyRepository.save(chunkedBody);
+                log.info("Stored {} bytes in {} chunks for data name: {}",
+                        chunkedBody.getBodyBytes(), chunkedBody.getChunkCount(), savedHeader.getName());
+                return true;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    public Optional<ChunkedBodyEntity> getChunkedBodyByName(String name) {
+        return chunkedBodyRepository.findByName(name);
+    }
+
+    /**
+     * Chunks are read through a cursor and each LOB is copied out while the transaction holds it open.
+     */
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    @Transactional(readOnly = true)
+    public void streamChunkedBody(ChunkedBodyEntity chunkedBody, OutputStream outputStream) throws IOException {
+        try {
+            jdbcTemplate.query(SELECT_CHUNKS, resultSet -> {
+                try (InputStream chunk = resultSet.getBinaryStream(1)) {
+                    StreamUtils.copy(chunk, outputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, chunkedBody.getDataHeaderId());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return false if no chunked body has the name.
+     */
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    public boolean deleteChunkedBody(String name) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Optional<ChunkedBodyEntity> chunkedBody = chunkedBodyRepository.findByName(name);
+            chunkedBody.ifPresent(found -> {
+                jdbcTemplate.update(DELETE_CHUNKS, found.getDataHeaderId());
+                chunkedBodyRepository.delete(found);
+                dataHeaderRepository.delete(found.getDataHeaderEntity());
+                log.info("Deleted {} chunks for data name: {}", found.getChunkCount(), name);
+            });
+            return chunkedBody.isPresent();
+        }));
+    }
+
+    private DataHeaderEntity insertHeader(DataHeaderEntity dataHeader) {
+        try {
+            return dataHeaderRepository.saveAndFlush(dataHeader);
+        } catch (DataIntegrityViolationException e) {
+            throw new DataNameTakenException(dataHeader.getName(), e);
+        }
+    }
+
+    private ChunkedBodyEntity writeChunks(DataHeaderEntity dataHeader, ChecksumAlgorithm algorithm, InputStream body) {
+        StreamingChecksum checksum = checksumCalculator.streaming(algorithm);
+        byte[] buffer = new byte[chunkBytes];
+        long bodyBytes = 0;
+        int chunkCount = 0;
+        int filled;
+        do {
+            filled = fill(body, buffer);
+            if (filled > 0) {
+                checksum.update(buffer, 0, filled);
+                insertChunk(dataHeader.getDataHeaderId(), chunkCount++, buffer, filled);
+                bodyBytes += filled;
+            }
+        } while (filled == buffer.length);
+
+        ChunkedBodyEntity chunkedBody = new ChunkedBodyEntity();
+        chunkedBody.setDataHeaderEntity(dataHeader);
+        chunkedBody.setBodyBytes(bodyBytes);
+        chunkedBody.setChunkCount(chunkCount);
+        chunkedBody.setChecksumAlgorithm(algorithm);
+        chunkedBody.setChecksum(checksum.hex());
+        return chunkedBody;
+    }
+
+    /**
+     * The chunk goes to the driver as a stream, so the buffer can be reused for the next chunk.
+     */
+    private void insertChunk(long dataHeaderId, int chunkNo, byte[] buffer, int length) {
+        jdbcTemplate.update(INSERT_CHUNK, statement -> {
+            statement.setLong(1, dataHeaderId);
+            statement.setInt(2, chunkNo);
+            statement.setBinaryStream(3, new ByteArrayInputStream(buffer, 0, length), length);
+        });
+    }
+
+    /**
+     * Reads until the buffer is full or the body ends, since a single read may return any amount.
+     * @return the number of bytes read, less than the buffer length only at the end of the body.
+     */
+    private static int fill(InputStream body, byte[] buffer) {
+        int filled = 0;
+        try {
+            int read;
+            while (filled < buffer.length && (read = body.read(buffer, filled, buffer.length - filled)) != -1) {
+                filled += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return filled;
+    }
+}
@@ -1,48 +1,262 @@
 package com.db.dataplatform.techtest.server.service.impl;
 
+import com.db.dataplatform.techtest.server.cache.BlockTypeResultCache;
+import com.db.dataplatform.techtest.server.cache.DataStoreIdCache;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataDigest;
 import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataContentService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DataBodyServiceImpl implements DataBodyService {
 
+    public static final String PERSISTENCE_TIMER = "techtest.persistence";
+
     private final DataStoreRepository dataStoreRepository;
+    private final DataContentService dataContentService;
+    private final DataStoreIdCache dataStoreIdCache;
+    private final BlockTypeResultCache blockTypeResultCache;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
 
+    /**
+     * Inserts the row, or updates the row already stored under its name; see {@link #upsert(List, Set)}.
+     */
     @Override
+    @Timed(PERSISTENCE_TIMER)
     public void saveDataBody(DataBodyEntity dataBody) {
-        dataStoreRepository.save(dataBody);
+        write(Collections.singletonList(dataBody));
     }
 
+    /**
+     * Upserts all rows in one transaction so Hibernate can send the inserts as JDBC batches. If that transaction
+     * fails, every row is retried in a transaction of its own, so a bad row only fails itself. A row whose name
+     * was taken by a concurrent writer meanwhile becomes an update of it on the retry.
+     * @param dataBodies
+     * @return per row, in order, whether it was persisted.
+     */
     @Override
+    @Timed(PERSISTENCE_TIMER)
+    public List<Boolean> saveDataBodies(List<DataBodyEntity> dataBodies) {
+        try {
+            write(dataBodies);
+            return Collections.nCopies(dataBodies.size(), Boolean.TRUE);
+        } catch (DataAccessException | TransactionException batchException) {
+            log.warn("Batch of {} rows failed, saving rows individually", dataBodies.size(), batchException);
+        }
+
+        List<Boolean> results = new ArrayList<>(dataBodies.size());
+        for (DataBodyEntity dataBody : dataBodies) {
+            // Ids assigned by the rolled back batch are not in the database.
+            dataBody.setDataStoreId(null);
+            dataBody.getDataHeaderEntity().setDataHeaderId(null);
+            dataBody.getDataHeaderEntity().setVersion(null);
+            try {
+                saveDataBody(dataBody);
+                results.add(Boolean.TRUE);
+            } catch (DataAccessException rowException) {
+                log.warn("Failed to persist data name: {}", dataBody.getDataHeaderEntity().getName(), rowException);
+                results.add(Boolean.FALSE);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    public List<DataDigest> getDigests(Collection<String> names) {
+        return dataStoreRepository.findDigestsByNames(names);
+    }
+
+    private void write(List<DataBodyEntity> dataBodies) {
+        Set<BlockTypeEnum> written = EnumSet.noneOf(BlockTypeEnum.class);
+        List<DataBodyEntity> rows = transactionTemplate.execute(status -> upsert(dataBodies, written));
+        if (rows != null) {
+            rows.forEach(this::cacheDataStoreId);
+        }
+        written.forEach(blockTypeResultCache::evict);
+    }
+
+    /**
+     * A row whose name is stored with the same body and block type is left as it is. One whose body or block type
+     * changed updates the stored row in place and moves its content reference; the rest are inserted. Rows are
+     * compared in order, so of several rows for one name only the last is written.
+     * @param written collects the block types rows were written to or moved from.
+     * @return the stored row for each name.
+     */
+    private List<DataBodyEntity> upsert(List<DataBodyEntity> dataBodies, Set<BlockTypeEnum> written) {
+        Set<String> names = new HashSet<>();
+        dataBodies.forEach(dataBody -> names.add(name(dataBody)));
+        Map<String, DataBodyEntity> stored = new HashMap<>();
+        dataStoreRepository.findByNames(names).forEach(row -> stored.put(name(row), row));
+
+        Map<String, DataBodyEntity> latest = new HashMap<>(stored);
+        Map<String, DataBodyEntity> changes = new LinkedHashMap<>();
+        for (DataBodyEntity dataBody : dataBodies) {
+            DataBodyEntity current = latest.get(name(dataBody));
+            if (current != null) {
+                dataBody.setContentChecksum(dataContentService.checksum(dataBody.getDataBody()));
+                if (dataBody.getContentChecksum().equals(current.getContentChecksum())
+                        && blockType(dataBody) == blockType(current)) {
+                    continue;
+                }
+            }
+            latest.put(name(dataBody), dataBody);
+            changes.put(name(dataBody), dataBody);
+        }
+        if (changes.isEmpty()) {
+            return new ArrayList<>(stored.values());
+        }
+        List<DataBodyEntity> changed = new ArrayList<>(changes.values());
+
+        // Content first: the rows written below reference it.
+        dataContentService.acquire(changed);
+        List<DataBodyEntity> inserts = new ArrayList<>(changed.size());
+        List<String> released = new ArrayList<>();
+        for (DataBodyEntity dataBody : changed) {
+            written.add(blockType(dataBody));
+            DataBodyEntity existing = stored.get(name(dataBody));
+            if (existing == null) {
+                inserts.add(dataBody);
+                continue;
+            }
+            written.add(blockType(existing));
+            released.add(existing.getContentChecksum());
+            existing.setContentChecksum(dataBody.getContentChecksum());
+            existing.setDataBody(dataBody.getDataBody());
+            existing.getDataHeaderEntity().setBlocktype(blockType(dataBody));
+        }
+        dataStoreRepository.saveAll(inserts);
+        if (!released.isEmpty()) {
+            // The rows have to point elsewhere before their old content can go.
+            dataStoreRepository.flush();
+            released.forEach(dataContentService::release);
+        }
+
+        List<DataBodyEntity> rows = new ArrayList<>(stored.values());
+        rows.addAll(inserts);
+        return rows;
+    }
+
+    private static String name(DataBodyEntity dataBody) {
+        return dataBody.getDataHeaderEntity().getName();
+    }
+
+    private static BlockTypeEnum blockType(DataBodyEntity dataBody) {
+        return dataBody.getDataHeaderEntity().getBlocktype();
+    }
+
+    private void cacheDataStoreId(DataBodyEntity dataBody) {
+        dataStoreIdCache.put(dataBody.getDataHeaderEntity().getName(), dataBody.getDataStoreId());
+    }
+
+    /**
+     * Served from {@link BlockTypeResultCache}; every save evicts the block types it wrote to.
+     */
+    @Override
+    @Timed(PERSISTENCE_TIMER)
     public List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType) {
-        return dataStoreRepository
-                .findAll()
-                .stream()
-                .filter(entry->entry.getDataHeaderEntity().getBlocktype().toString().equals(blockType.toString()))
-                .collect(Collectors.toList());
+        return blockTypeResultCache.get(blockType, dataStoreRepository::findByBlockType);
     }
 
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    public List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType, long after, int limit) {
+        return dataStoreRepository.findByBlockTypeAfter(blockType, after, PageRequest.of(0, limit));
+    }
 
     /**
-     *  This assumes that there is only one entry per name.
+     * Hands each row to the consumer as it is read from the cursor and detaches it afterwards,
+     * so the persistence context never holds more than the current row.
+     */
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    @Transactional(readOnly = true)
+    public void streamDataByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer) {
+        try (Stream<DataBodyEntity> data = dataStoreRepository.streamByBlockType(blockType)) {
+            data.forEach(entry -> {
+                consumer.accept(entry);
+                entityManager.detach(entry);
+                if (entry.getDataContent() != null) {
+                    entityManager.detach(entry.getDataContent());
+                }
+            });
+        }
+    }
+
+
+    /**
+     *  Names are unique (UK_DATA_HEADER). A cached DATA_STORE_ID is resolved by primary key and
+     *  double-checked against the name, otherwise the lookup falls back to the unique index.
      * @param blockName
      * @return
      */
     @Override
+    @Timed(PERSISTENCE_TIMER)
     public Optional<DataBodyEntity> getDataByBlockName(String blockName) {
-        return dataStoreRepository
-                .findAll()
-                .stream()
-                .filter(entry->entry.getDataHeaderEntity().getName().equals(blockName))
-                .findAny();
+        Optional<DataBodyEntity> cached = dataStoreIdCache.get(blockName)
+                .flatMap(dataStoreRepository::findById)
+                .filter(entry -> blockName.equals(entry.getDataHeaderEntity().getName()));
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        dataStoreIdCache.evict(blockName);
+        Optional<DataBodyEntity> data = dataStoreRepository.findByName(blockName);
+        data.ifPresent(entry -> dataStoreIdCache.put(blockName, entry.getDataStoreId()));
+        return data;
+    }
+
+    /**
+     * Deletes the row and its header, and releases its reference to the stored body, which goes with the last one.
+     * @return false if no row has the name.
+     */
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    public boolean deleteDataBody(String blockName) {
+        Optional<DataBodyEntity> deleted = transactionTemplate.execute(status -> {
+            Optional<DataBodyEntity> data = dataStoreRepository.findByName(blockName);
+            data.ifPresent(entry -> {
+                dataStoreRepository.delete(entry);
+                // The row has to be gone before its content can be.
+                dataStoreRepository.flush();
+                dataContentService.release(entry.getContentChecksum());
+            });
+            return data;
+        });
+        dataStoreIdCache.evict(blockName);
+        if (deleted == null || !deleted.isPresent()) {
+            return false;
+        }
+        blockTypeResultCache.evict(deleted.get().getDataHeaderEntity().getBlocktype());
+        return true;
     }
 }
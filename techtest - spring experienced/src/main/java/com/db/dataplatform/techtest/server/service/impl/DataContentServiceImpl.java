@@ -0,0 +1,174 @@
+package com.db.dataplatform.techtest.server.service.impl;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataContentRepository;
+import com.db.dataplatform.techtest.server.service.DataContentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Content-addressed body store. A body is keyed by its MD5 and stored once in DATA_CONTENT; every DATA_STORE row
+ * with that body references it and is counted in REF_COUNT. Counts change with single UPDATE statements, so
+ * concurrent writers never lose an increment, and both methods join the caller's transaction so the counts commit
+ * or roll back with the rows they count.
+ * <p>
+ * Two writers storing the same new body at once both try to insert it and one fails on PK_DATA_CONTENT; the caller
+ * retries it, and the retry finds the body stored. An increment also compares the body, so a body that merely shares
+ * an MD5 with a stored one is refused rather than silently swapped for it.
+ */
+@Slf4j
+@Service
+public class DataContentServiceImpl implements DataContentService {
+
+    static final String INCREMENT = "update DATA_CONTENT set REF_COUNT = REF_COUNT + ? where CHECKSUM = ? and DATA_BODY = ?";
+    static final String INSERT = "insert into DATA_CONTENT (CHECKSUM, DATA_BODY, REF_COUNT, CREATED_TIMESTAMP) values (?, ?, ?, ?)";
+    static final String DECREMENT = "update DATA_CONTENT set REF_COUNT = REF_COUNT - 1 where CHECKSUM = ?";
+    static final String DELETE_UNREFERENCED = "delete from DATA_CONTENT where CHECKSUM = ? and REF_COUNT <= 0";
+    static final String STORAGE = "select count(*), coalesce(sum(REF_COUNT), 0), coalesce(sum(length(DATA_BODY)), 0), "
+            + "coalesce(sum(length(DATA_BODY) * REF_COUNT), 0) from DATA_CONTENT";
+
+    public static final ChecksumAlgorithm CONTENT_CHECKSUM_ALGORITHM = ChecksumAlgorithm.MD5;
+
+    private static final long STORAGE_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final DataContentRepository dataContentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChecksumCalculator checksumCalculator;
+    private final Counter storedRows;
+    private final Counter deduplicatedRows;
+
+    private volatile long[] storage = new long[4];
+    private volatile long storageReadAt = System.nanoTime() - STORAGE_REFRESH_NANOS;
+
+    public DataContentServiceImpl(DataContentRepository dataContentRepository, JdbcTemplate jdbcTemplate,
+                                  ChecksumCalculator checksumCalculator, MeterRegistry meterRegistry) {
+        this.dataContentRepository = dataContentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.checksumCalculator = checksumCalculator;
+        this.storedRows = Counter.builder("techtest.content.writes")
+                .description("Rows written whose body was stored as new content")
+                .tag("result", "stored")
+                .register(meterRegistry);
+        this.deduplicatedRows = Counter.builder("techtest.content.writes")
+                .description("Rows written whose body was already stored")
+                .tag("result", "deduplicated")
+                .register(meterRegistry);
+        storageGauge(meterRegistry, "techtest.content.bodies", "Distinct bodies stored", null, values -> values[0]);
+        storageGauge(meterRegistry, "techtest.content.references", "Rows referencing a stored body", null, values -> values[1]);
+        storageGauge(meterRegistry, "techtest.content.chars", "Characters of body stored", "stored", values -> values[2]);
+        storageGauge(meterRegistry, "techtest.content.chars", "Characters of body the rows would hold without sharing", "referenced", values -> values[3]);
+    }
+
+    /**
+     * The key a body is stored under, {@link #CONTENT_CHECKSUM_ALGORITHM} of the body.
+     */
+    @Override
+    public String checksum(String body) {
+        return checksumCalculator.checksum(CONTENT_CHECKSUM_ALGORITHM, body);
+    }
+
+    /**
+     * Points each row at the stored copy of its body, storing bodies not seen before. Rows in the list that share
+     * a body share one DATA_CONTENT row.
+     * @throws DataIntegrityViolationException if a body shares its MD5 with a different stored body, or if its
+     * stored copy was released meanwhile; retrying resolves the latter.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void acquire(List<DataBodyEntity> dataBodies) {
+        Map<String, List<DataBodyEntity>> byChecksum = new LinkedHashMap<>();
+        for (DataBodyEntity dataBody : dataBodies) {
+            String checksum = checksum(dataBody.getDataBody());
+            dataBody.setContentChecksum(checksum);
+            List<DataBodyEntity> sharing = byChecksum.computeIfAbsent(checksum, key -> new ArrayList<>(1));
+            if (!sharing.isEmpty() && !sharing.get(0).getDataBody().equals(dataBody.getDataBody())) {
+                throw new DataIntegrityViolationException("Different bodies share the checksum " + checksum);
+            }
+            sharing.add(dataBody);
+        }
+
+        Set<String> existing = new HashSet<>(dataContentRepository.findExistingChecksums(byChecksum.keySet()));
+        List<Object[]> increments = new ArrayList<>(existing.size());
+        List<Object[]> inserts = new ArrayList<>(byChecksum.size() - existing.size());
+        Timestamp now = Timestamp.from(Instant.now());
+        for (Map.Entry<String, List<DataBodyEntity>> content : byChecksum.entrySet()) {
+            String body = content.getValue().get(0).getDataBody();
+            int references = content.getValue().size();
+            if (existing.contains(content.getKey())) {
+                increments.add(new Object[]{references, content.getKey(), body});
+            } else {
+                inserts.add(new Object[]{content.getKey(), body, references, now});
+            }
+        }
+
+        if (!increments.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(INCREMENT, increments);
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    throw new DataIntegrityViolationException("Stored content for checksum " + increments.get(i)[1]
+                            + " differs from the body or was released");
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts);
+        }
+        storedRows.increment(inserts.size());
+        deduplicatedRows.increment(dataBodies.size() - inserts.size());
+    }
+
+    /**
+     * Drops one reference, and the stored body with the last one. The referencing row must already be deleted.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String checksum) {
+        jdbcTemplate.update(DECREMENT, checksum);
+        if (jdbcTemplate.update(DELETE_UNREFERENCED, checksum) > 0) {
+            log.debug("Deleted unreferenced content {}", checksum);
+        }
+    }
+
+    private void storageGauge(MeterRegistry meterRegistry, String name, String description, String copy,
+                              ToLongFunction<long[]> value) {
+        Gauge.Builder<DataContentServiceImpl> gauge = Gauge.builder(name, this, service -> value.applyAsLong(service.storage()))
+                .description(description);
+        if (copy != null) {
+            gauge.tag("copy", copy).baseUnit("characters");
+        }
+        gauge.register(meterRegistry);
+    }
+
+    /**
+     * One aggregate over DATA_CONTENT, shared by the storage gauges and read at most every few seconds.
+     */
+    private long[] storage() {
+        long now = System.nanoTime();
+        if (now - storageReadAt >= STORAGE_REFRESH_NANOS) {
+            storageReadAt = now;
+            storage = jdbcTemplate.queryForObject(STORAGE, (resultSet, row) -> new long[]{
+                    resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3), resultSet.getLong(4)});
+        }
+        return storage;
+    }
+}
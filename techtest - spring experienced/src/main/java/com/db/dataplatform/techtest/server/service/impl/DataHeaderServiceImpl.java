@@ -1,18 +1,63 @@
 package com.db.dataplatform.techtest.server.service.impl;
 
+import com.db.dataplatform.techtest.server.cache.BlockTypeResultCache;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static com.db.dataplatform.techtest.server.service.impl.DataBodyServiceImpl.PERSISTENCE_TIMER;
 
 @Service
 @RequiredArgsConstructor
 public class DataHeaderServiceImpl implements com.db.dataplatform.techtest.server.service.DataHeaderService {
 
     private final DataHeaderRepository dataHeaderRepository;
+    private final BlockTypeResultCache blockTypeResultCache;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public void saveHeader(DataHeaderEntity entity) {
         dataHeaderRepository.save(entity);
     }
+
+    /**
+     * Changes the block type with a single UPDATE on DATA_HEADER; the body is neither read nor written. Concurrent
+     * updates to a name are serialised by the row lock and each gets the next version. With an expected version only
+     * the first of them applies and the rest fail, without reading the header first.
+     * @param expectedVersion version the caller last saw, or null to update whatever the version.
+     * @return the new version, or empty if no header has the name.
+     * @throws OptimisticLockingFailureException if the header is no longer at the expected version.
+     */
+    @Override
+    @Timed(PERSISTENCE_TIMER)
+    public Optional<Long> updateBlockType(String name, BlockTypeEnum blockType, Long expectedVersion) {
+        Optional<Long> version = transactionTemplate.execute(status -> {
+            if (expectedVersion == null) {
+                // The row stays locked until commit, so the version read back is the one this update wrote.
+                return dataHeaderRepository.updateBlockType(name, blockType) == 0
+                        ? Optional.<Long>empty() : dataHeaderRepository.findVersionByName(name);
+            }
+            if (dataHeaderRepository.updateBlockType(name, blockType, expectedVersion) > 0) {
+                return Optional.of(expectedVersion + 1);
+            }
+            Optional<Long> current = dataHeaderRepository.findVersionByName(name);
+            if (current.isPresent()) {
+                throw new OptimisticLockingFailureException("Header " + name + " is at version " + current.get()
+                        + ", not " + expectedVersion);
+            }
+            return current;
+        });
+        if (version != null && version.isPresent()) {
+            blockTypeResultCache.evictAll();
+            return version;
+        }
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,262 @@
+package com.db.dataplatform.techtest.server.service.impl;
+
+import com.db.dataplatform.techtest.server.exception.DataPersistenceException;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.GroupCommitWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces concurrent single-row saves into shared transactions. Writers enqueue their row and block; one committer
+ * thread takes up to max-batch-size rows, waiting at most max-wait-micros after the first for more to arrive, and
+ * commits them through {@link DataBodyService#saveDataBodies(List)}. Each writer returns once its own row is
+ * committed, or throws if only its row failed.
+ * <p>
+ * A row never fails its neighbours: a name repeated inside the batch waits for the next one, so rows for a name are
+ * committed in the order they were written, and a batch that still fails is retried row by row by the service.
+ * A name already in the database is not an error; the service updates the stored row or leaves it as it is.
+ * A full queue rejects the write with {@link RejectedExecutionException}, as does a committer that has stopped:
+ * the writer then closes, and a write whose row it was holding stops waiting once it sees the thread is gone.
+ * With group commit disabled every write is its own transaction, as before.
+ */
+@Slf4j
+@Service
+public class GroupCommitWriterImpl implements GroupCommitWriter {
+
+    public static final String BATCH_SUMMARY = "techtest.server.group-commit.batch-size";
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final DataBodyService dataBodyService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long drainTimeoutMs;
+
+    private final BlockingQueue<PendingWrite> queue;
+    private final Deque<PendingWrite> deferred = new ArrayDeque<>();
+    private final DistributionSummary batchSize;
+    private final Counter deferredNames;
+    private final Thread committer;
+    private volatile boolean closed;
+
+    public GroupCommitWriterImpl(DataBodyService dataBodyService, MeterRegistry meterRegistry,
+                                 @Value("${techtest.server.group-commit.enabled:true}") boolean enabled,
+                                 @Value("${techtest.server.group-commit.max-batch-size:100}") int maxBatchSize,
+                                 @Value("${techtest.server.group-commit.max-wait-micros:500}") long maxWaitMicros,
+                                 @Value("${techtest.server.group-commit.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${techtest.server.group-commit.drain-timeout-ms:30000}") long drainTimeoutMs) {
+        this.dataBodyService = dataBodyService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = DistributionSummary.builder(BATCH_SUMMARY)
+                .description("Rows committed together by the group commit writer")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.deferredNames = Counter.builder("techtest.server.group-commit.deferred")
+                .description("Rows moved to the next batch because their name repeated inside the current one")
+                .register(meterRegistry);
+        Gauge.builder("techtest.server.group-commit.queued", queue, BlockingQueue::size)
+                .description("Rows waiting for the group commit writer")
+                .register(meterRegistry);
+        if (enabled) {
+            this.committer = new CustomizableThreadFactory("group-commit-").newThread(this::runCommitter);
+            this.committer.setDaemon(true);
+            this.committer.start();
+        } else {
+            this.committer = null;
+        }
+    }
+
+    /**
+     * Blocks until the row is committed.
+     * @throws DataAccessException if the row was not persisted.
+     * @throws RejectedExecutionException if the writer is full or closed.
+     */
+    @Override
+    public void write(DataBodyEntity dataBody) {
+        if (!enabled) {
+            dataBodyService.saveDataBody(dataBody);
+            return;
+        }
+        PendingWrite pending = new PendingWrite(dataBody);
+        if (closed || !queue.offer(pending)) {
+            throw new RejectedExecutionException("Group commit writer is " + (closed ? "closed" : "full"));
+        }
+        // Closed after the offer: the committer may already have drained the queue and stopped.
+        if (closed && queue.remove(pending)) {
+            throw new RejectedExecutionException("Group commit writer is closed");
+        }
+        try {
+            while (true) {
+                try {
+                    pending.result.get(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException stillQueued) {
+                    if (!committer.isAlive() && !pending.result.isDone()) {
+                        queue.remove(pending);
+                        throw new RejectedExecutionException("Group commit writer stopped before committing data name: " + pending.name());
+                    }
+                }
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new DataPersistenceException("Interrupted waiting for commit of data name: " + pending.name());
+        } catch (ExecutionException failed) {
+            if (failed.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) failed.getCause();
+            }
+            throw new DataPersistenceException("Failed to persist data name: " + pending.name());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        if (committer == null) {
+            return;
+        }
+        committer.join(drainTimeoutMs);
+        if (committer.isAlive()) {
+            committer.interrupt();
+            committer.join();
+        }
+    }
+
+    private void runCommitter() {
+        try {
+            List<PendingWrite> batch;
+            while ((batch = nextBatch()) != null) {
+                commit(batch);
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException unexpected) {
+            log.error("Group commit writer stopped", unexpected);
+        } finally {
+            // Whatever ended the loop, later writes are refused instead of queueing for a thread that is gone.
+            closed = true;
+            failRemaining();
+        }
+    }
+
+    /**
+     * Rows deferred from the previous batch go first and do not linger again.
+     * @return null once the writer is closed and nothing is left to commit.
+     */
+    private List<PendingWrite> nextBatch() throws InterruptedException {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (!deferred.isEmpty() && batch.size() < maxBatchSize) {
+            batch.add(deferred.pollFirst());
+        }
+        if (batch.isEmpty()) {
+            PendingWrite first;
+            do {
+                if (closed && queue.isEmpty()) {
+                    return null;
+                }
+                first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } while (first == null);
+            batch.add(first);
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (batch.size() < maxBatchSize) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if (batch.size() >= maxBatchSize || remaining <= 0) {
+                    break;
+                }
+                PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        } else {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+        return batch;
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        List<PendingWrite> writes = new ArrayList<>(batch.size());
+        Set<String> names = new HashSet<>();
+        for (PendingWrite pending : batch) {
+            if (names.add(pending.name())) {
+                writes.add(pending);
+            } else {
+                deferredNames.increment();
+                deferred.addLast(pending);
+            }
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        batchSize.record(writes.size());
+        List<Boolean> persisted;
+        try {
+            persisted = dataBodyService.saveDataBodies(writes.stream().map(pending -> pending.dataBody).collect(Collectors.toList()));
+        } catch (RuntimeException batchException) {
+            writes.forEach(pending -> pending.result.completeExceptionally(batchException));
+            return;
+        }
+        for (int i = 0; i < writes.size(); i++) {
+            PendingWrite pending = writes.get(i);
+            if (persisted.get(i)) {
+                pending.result.complete(null);
+            } else {
+                pending.result.completeExceptionally(new DataPersistenceException("Failed to persist data name: " + pending.name()));
+            }
+        }
+    }
+
+    private void failRemaining() {
+        RejectedExecutionException closedException = new RejectedExecutionException("Group commit writer is closed");
+        deferred.forEach(pending -> pending.result.completeExceptionally(closedException));
+        deferred.clear();
+        PendingWrite pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(closedException);
+        }
+    }
+
+    private static final class PendingWrite {
+        private final DataBodyEntity dataBody;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private PendingWrite(DataBodyEntity dataBody) {
+            this.dataBody = dataBody;
+        }
+
+        private String name() {
+            return dataBody.getDataHeaderEntity().getName();
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.db.dataplatform.techtest.server.service.impl;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.EnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataHeaderService;
+import com.db.dataplatform.techtest.server.service.WalIngestService;
+import com.db.dataplatform.techtest.server.wal.MappedWriteAheadLog;
+import com.db.dataplatform.techtest.server.wal.WalEntry;
+import com.db.dataplatform.techtest.server.wal.WalSyncPolicy;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Acknowledges a push once its envelope is in the {@link MappedWriteAheadLog}, and applies logged envelopes to the
+ * database from a single applier thread, up to apply-batch-size per transaction. Rows appended but not yet applied
+ * are not visible to queries.
+ * <p>
+ * Applying is an upsert, so an envelope for a name that is already stored or still logged updates it when applied,
+ * and one that changes nothing is a no-op. Within a batch the last envelope for a name wins, as it would have
+ * applied one by one.
+ * <p>
+ * Deletes and block type updates are logged as well, so a replay does not bring a deleted name or an old block type
+ * back. They are applied by the same thread in log order with the pushes around them, and return once applied, with
+ * their result. Versions are not reproduced by a replay, so an update is checked against its expected version when
+ * first applied, and only replayed if an APPLIED record for it followed, unconditionally then.
+ * <p>
+ * Changes are queued for the applier while the log still serialises appends, so they are applied in sequence
+ * order. A row the database refuses, or a batch that fails, is logged and left in the log for the next replay, and
+ * its name stays pending until then.
+ * <p>
+ * On startup the log is replayed into the database before the server accepts requests. With database-durable off,
+ * as for the in-memory H2 store, the whole log is kept and replayed, so the log is what survives a restart. With it
+ * on, the highest sequence below which everything was applied is checkpointed, replay starts there and applied
+ * segments are deleted. With the log disabled, pushes are committed directly as before.
+ */
+@Slf4j
+@Service
+public class WalIngestServiceImpl implements WalIngestService {
+
+    public static final String APPEND_TIMER = "techtest.server.wal.append";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final long IDLE_POLL_MS = 100;
+
+    private final DataBodyService dataBodyService;
+    private final DataHeaderService dataHeaderService;
+    private final EnvelopeEntityMapper envelopeEntityMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final boolean databaseDurable;
+    private final int applyBatchSize;
+    private final long drainTimeoutMs;
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final BlockingQueue<LoggedEntry> applyQueue = new LinkedBlockingQueue<>();
+    private final Semaphore applySlots;
+    private final MappedWriteAheadLog writeAheadLog;
+    private final Timer appendTimer;
+    private volatile Thread applier;
+    private volatile boolean closed;
+    private final ConcurrentMap<String, Integer> pending = new ConcurrentHashMap<>();
+
+    // Only touched by recovery and then the applier thread.
+    private final NavigableSet<Long> failed = new TreeSet<>();
+    private long checkpointed;
+
+    public WalIngestServiceImpl(DataBodyService dataBodyService, DataHeaderService dataHeaderService,
+                                EnvelopeEntityMapper envelopeEntityMapper, MeterRegistry meterRegistry,
+                                @Value("${techtest.server.wal.enabled:false}") boolean enabled,
+                                @Value("${techtest.server.wal.directory:wal}") String directory,
+                                @Value("${techtest.server.wal.segment-bytes:67108864}") int segmentBytes,
+                                @Value("${techtest.server.wal.sync-policy:ALWAYS}") WalSyncPolicy syncPolicy,
+                                @Value("${techtest.server.wal.sync-interval-ms:10}") long syncIntervalMs,
+                                @Value("${techtest.server.wal.database-durable:false}") boolean databaseDurable,
+                                @Value("${techtest.server.wal.apply-batch-size:500}") int applyBatchSize,
+                                @Value("${techtest.server.wal.apply-queue-capacity:10000}") int applyQueueCapacity,
+                                @Value("${techtest.server.wal.drain-timeout-ms:30000}") long drainTimeoutMs) {
+        this.dataBodyService = dataBodyService;
+        this.dataHeaderService = dataHeaderService;
+        this.envelopeEntityMapper = envelopeEntityMapper;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.databaseDurable = databaseDurable;
+        this.applyBatchSize = applyBatchSize;
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.applySlots = new Semaphore(applyQueueCapacity);
+        this.writeAheadLog = enabled ? new MappedWriteAheadLog(this.directory, segmentBytes, syncPolicy, syncIntervalMs) : null;
+        this.appendTimer = Timer.builder(APPEND_TIMER)
+                .description("Time to append and sync an envelope to the write-ahead log")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("techtest.server.wal.apply-backlog", applyQueue, BlockingQueue::size)
+                .description("Logged changes not yet applied to the database")
+                .register(meterRegistry);
+        if (enabled) {
+            FunctionCounter.builder("techtest.server.wal.syncs", writeAheadLog, MappedWriteAheadLog::syncCount)
+                    .description("Forces of the write-ahead log to disk")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        long checkpoint = databaseDurable ? readCheckpoint() : 0;
+        checkpointed = checkpoint;
+        Set<Long> appliedUpdates = new HashSet<>();
+        writeAheadLog.replay(checkpoint, record -> {
+            WalEntry entry = read(record.getPayload());
+            if (entry.getType() == WalEntry.Type.APPLIED) {
+                appliedUpdates.add(entry.getAppliedSequence());
+            }
+        });
+
+        List<LoggedEntry> batch = new ArrayList<>(applyBatchSize);
+        AtomicLong replayed = new AtomicLong();
+        writeAheadLog.replay(checkpoint, record -> {
+            WalEntry entry = read(record.getPayload());
+            if (entry.getType() == WalEntry.Type.APPLIED
+                    || entry.getType() == WalEntry.Type.BLOCK_TYPE && !appliedUpdates.contains(record.getSequence())) {
+                return;
+            }
+            pending.merge(entry.getName(), 1, Integer::sum);
+            batch.add(new LoggedEntry(record.getSequence(), entry, null));
+            replayed.incrementAndGet();
+            if (batch.size() >= applyBatchSize) {
+                apply(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            apply(batch);
+        }
+        log.info("Replayed {} changes from the write-ahead log after sequence {}", replayed.get(), checkpoint);
+
+        applier = new CustomizableThreadFactory("wal-applier-").newThread(this::runApplier);
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true while a change to the name is logged but not yet applied, or failed to apply and waits for the
+     * next replay. What is stored under the name may not be what it ends up as.
+     */
+    @Override
+    public boolean isPending(String name) {
+        return pending.containsKey(name);
+    }
+
+    /**
+     * Returns once the envelope is logged and synced according to the sync policy. Blocks while apply-queue-capacity
+     * envelopes are waiting to be applied.
+     * @throws RejectedExecutionException if the log is disabled or closed, the applier has stopped, or the caller is
+     * interrupted while waiting. The envelope is not logged then.
+     */
+    @Override
+    public void append(DataEnvelope envelope) {
+        log(WalEntry.push(envelope), null);
+    }
+
+    /**
+     * Logs the delete and waits for the applier to reach it, behind whatever was logged before.
+     * @return false if no row had the name when the delete was applied.
+     * @throws RejectedExecutionException as {@link #append(DataEnvelope)}, or if the applier stopped before reaching
+     * the delete. It is applied on the next replay then.
+     */
+    @Override
+    public boolean delete(String name) {
+        CompletableFuture<Object> outcome = new CompletableFuture<>();
+        log(WalEntry.delete(name), outcome);
+        return (Boolean) await(outcome);
+    }
+
+    /**
+     * Logs the update and waits for the applier to reach it, behind whatever was logged before.
+     * @return the new version, or empty if no header had the name when the update was applied.
+     * @throws OptimisticLockingFailureException if the header was no longer at the expected version by then.
+     * @throws RejectedExecutionException as {@link #delete(String)}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Long> updateBlockType(String name, BlockTypeEnum blockType, Long expectedVersion) {
+        CompletableFuture<Object> outcome = new CompletableFuture<>();
+        log(WalEntry.blockType(name, blockType, expectedVersion), outcome);
+        return (Optional<Long>) await(outcome);
+    }
+
+    private void log(WalEntry entry, CompletableFuture<Object> outcome) {
+        byte[] payload;
+        try {
+            payload = smileMapper.writeValueAsBytes(entry);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialise data name: " + entry.getName(), e);
+        }
+        acquireApplySlot();
+        pending.merge(entry.getName(), 1, Integer::sum);
+        AtomicBoolean queued = new AtomicBoolean();
+        try {
+            appendTimer.record(() -> {
+                writeAheadLog.append(payload, sequence -> queued.set(applyQueue.add(new LoggedEntry(sequence, entry, outcome))));
+            });
+        } finally {
+            if (!queued.get()) {
+                applySlots.release();
+                settled(entry);
+            }
+        }
+    }
+
+    private void settled(WalEntry entry) {
+        pending.computeIfPresent(entry.getName(), (name, count) -> count == 1 ? null : count - 1);
+    }
+
+    private Object await(CompletableFuture<Object> outcome) {
+        try {
+            while (true) {
+                try {
+                    return outcome.get(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException stillQueued) {
+                    if (!applier.isAlive() && !outcome.isDone()) {
+                        throw new RejectedExecutionException("Write-ahead log applier stopped, the change is applied on the next replay");
+                    }
+                }
+            }
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before the logged change was applied, it is applied regardless", interrupted);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        if (applier != null) {
+            applier.join(drainTimeoutMs);
+            if (applier.isAlive()) {
+                applier.interrupt();
+                applier.join();
+            }
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+
+    private void acquireApplySlot() {
+        try {
+            do {
+                if (!enabled || closed) {
+                    throw new RejectedExecutionException("Write-ahead log is " + (enabled ? "closed" : "disabled"));
+                }
+                if (applier == null || !applier.isAlive()) {
+                    throw new RejectedExecutionException("Write-ahead log applier is not running");
+                }
+            } while (!applySlots.tryAcquire(IDLE_POLL_MS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the write-ahead log applier", interrupted);
+        }
+    }
+
+    private void runApplier() {
+        List<LoggedEntry> batch = new ArrayList<>(applyBatchSize);
+        try {
+            while (!closed || !applyQueue.isEmpty()) {
+                LoggedEntry first = applyQueue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                applyQueue.drainTo(batch, applyBatchSize - 1);
+                try {
+                    apply(batch);
+                } catch (RuntimeException e) {
+                    log.error("Failed to apply {} logged changes, they stay in the log for the next replay", batch.size(), e);
+                    batch.forEach(logged -> {
+                        failed.add(logged.sequence);
+                        if (logged.outcome != null) {
+                            logged.outcome.completeExceptionally(e);
+                        }
+                    });
+                } finally {
+                    applySlots.release(batch.size());
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException interrupted) {
+            // Whatever is left stays in the log for the next replay.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs of pushes are written together, and each other change on its own between them, so the outcome is that of
+     * applying the batch one change at a time.
+     */
+    private void apply(List<LoggedEntry> batch) {
+        List<LoggedEntry> pushes = new ArrayList<>(batch.size());
+        for (LoggedEntry logged : batch) {
+            if (logged.entry.getType() == WalEntry.Type.PUSH) {
+                pushes.add(logged);
+            } else {
+                applyPushes(pushes);
+                pushes.clear();
+                if (logged.entry.getType() == WalEntry.Type.DELETE) {
+                    applyDelete(logged);
+                } else {
+                    applyBlockType(logged);
+                }
+            }
+        }
+        applyPushes(pushes);
+
+        if (databaseDurable) {
+            checkpoint(batch.get(batch.size() - 1).sequence);
+        }
+    }
+
+    /**
+     * Applying is an upsert, so replaying envelopes that were already applied before a lost checkpoint is harmless.
+     * Only the last envelope per name in the run is written; the earlier ones would be overwritten by it anyway.
+     */
+    private void applyPushes(List<LoggedEntry> pushes) {
+        if (pushes.isEmpty()) {
+            return;
+        }
+        Map<String, List<LoggedEntry>> byName = new LinkedHashMap<>();
+        for (LoggedEntry logged : pushes) {
+            List<LoggedEntry> forName = byName.remove(logged.entry.getName());
+            if (forName == null) {
+                forName = new ArrayList<>(1);
+            }
+            forName.add(logged);
+            byName.put(logged.entry.getName(), forName);
+        }
+
+        List<DataBodyEntity> entities = new ArrayList<>(byName.size());
+        byName.values().forEach(forName -> entities.add(envelopeEntityMapper.toEntity(forName.get(forName.size() - 1).entry.getEnvelope())));
+        List<Boolean> persisted = dataBodyService.saveDataBodies(entities);
+        int i = 0;
+        for (Map.Entry<String, List<LoggedEntry>> forName : byName.entrySet()) {
+            if (persisted.get(i++)) {
+                forName.getValue().forEach(logged -> settled(logged.entry));
+            } else {
+                log.error("Logged data name {} could not be applied, it stays in the log for the next replay", forName.getKey());
+                forName.getValue().forEach(logged -> failed.add(logged.sequence));
+            }
+        }
+    }
+
+    /**
+     * Deleting a name that is already gone is a no-op, so a replayed delete is harmless as well.
+     */
+    private void applyDelete(LoggedEntry logged) {
+        boolean deleted;
+        try {
+            deleted = dataBodyService.deleteDataBody(logged.entry.getName());
+        } catch (RuntimeException e) {
+            log.error("Logged delete of data name {} could not be applied, it stays in the log for the next replay", logged.entry.getName(), e);
+            failed.add(logged.sequence);
+            if (logged.outcome != null) {
+                logged.outcome.completeExceptionally(e);
+            }
+            return;
+        }
+        settled(logged.entry);
+        if (logged.outcome != null) {
+            logged.outcome.complete(deleted);
+        }
+    }
+
+    /**
+     * A replayed update has no one waiting for it, and is applied whatever the version, since it passed its check
+     * when first applied. One that fails is not kept for replay: without an APPLIED record it never is.
+     */
+    private void applyBlockType(LoggedEntry logged) {
+        WalEntry entry = logged.entry;
+        boolean replayed = logged.outcome == null;
+        Optional<Long> version;
+        try {
+            version = dataHeaderService.updateBlockType(entry.getName(), entry.getBlockType(),
+                    replayed ? null : entry.getExpectedVersion());
+            if (!replayed && version.isPresent()) {
+                writeAheadLog.append(smileMapper.writeValueAsBytes(WalEntry.applied(logged.sequence)));
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            if (!(e instanceof OptimisticLockingFailureException)) {
+                log.error("Logged block type update of data name {} could not be applied", entry.getName(), e);
+            }
+            settled(entry);
+            if (!replayed) {
+                logged.outcome.completeExceptionally(e);
+            }
+            return;
+        }
+        settled(entry);
+        if (!replayed) {
+            logged.outcome.complete(version);
+        }
+    }
+
+    /**
+     * Everything up to {@code applied} has been attempted in order, so the checkpoint can move to just below the
+     * first envelope that failed, and no further.
+     */
+    private void checkpoint(long applied) {
+        long through = failed.isEmpty() ? applied : Math.min(applied, failed.first() - 1);
+        if (through > checkpointed) {
+            writeCheckpoint(through);
+            writeAheadLog.truncateBefore(through + 1);
+            checkpointed = through;
+        }
+    }
+
+    private WalEntry read(byte[] payload) {
+        try {
+            return smileMapper.readValue(payload, WalEntry.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read change from the write-ahead log", e);
+        }
+    }
+
+    private long readCheckpoint() {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        try {
+            return Files.exists(file) ? Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim()) : 0;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Unreadable write-ahead log checkpoint, replaying the whole log", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Not forced: a lost checkpoint only means some applied envelopes are replayed and skipped.
+     */
+    private void writeCheckpoint(long sequence) {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        Path next = directory.resolve(CHECKPOINT_FILE + ".next");
+        try {
+            Files.write(next, Long.toString(sequence).getBytes(StandardCharsets.US_ASCII));
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write write-ahead log checkpoint {}", sequence, e);
+        }
+    }
+
+    /**
+     * The outcome is completed with the result of applying the change when a caller waits for it, and is null for
+     * pushes and replayed changes.
+     */
+    private static final class LoggedEntry {
+        private final long sequence;
+        private final WalEntry entry;
+        private final CompletableFuture<Object> outcome;
+
+        private LoggedEntry(long sequence, WalEntry entry, CompletableFuture<Object> outcome) {
+            this.sequence = sequence;
+            this.entry = entry;
+            this.outcome = outcome;
+        }
+    }
+}
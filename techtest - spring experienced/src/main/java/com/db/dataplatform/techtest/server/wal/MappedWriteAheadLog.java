@@ -0,0 +1,288 @@
+package com.db.dataplatform.techtest.server.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log in fixed size segment files, each memory-mapped once, so an append is a copy into the page cache.
+ * A record is framed as length, CRC32 of the payload and sequence number, followed by the payload. The length is
+ * written last, and an unused region of a segment reads as zero, which marks the end of its records.
+ * <p>
+ * Segments are named after the first sequence number they hold. On open only the last segment is scanned, since the
+ * earlier ones were forced when they were rolled; a record in it whose length or checksum does not add up is a torn
+ * write from a crash, and it and the rest of the segment are cleared before appending resumes. When a record does
+ * not fit in the current segment, that segment is forced and a new one is started. Forcing follows the
+ * {@link WalSyncPolicy}.
+ */
+@Slf4j
+public class MappedWriteAheadLog implements WriteAheadLog {
+
+    static final int HEADER_BYTES = 16;
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final WalSyncPolicy syncPolicy;
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final CRC32 crc = new CRC32();
+    private final AtomicLong syncs = new AtomicLong();
+    private final ScheduledExecutorService syncer;
+
+    private MappedByteBuffer segment;
+    private long nextSequence;
+    private volatile long appendedSequence;
+    private volatile long syncedSequence;
+
+    public MappedWriteAheadLog(Path directory, int segmentBytes, WalSyncPolicy syncPolicy, long syncIntervalMs) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncPolicy = syncPolicy;
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log in " + directory, e);
+        }
+        if (syncPolicy == WalSyncPolicy.INTERVAL) {
+            syncer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("wal-sync-"));
+            syncer.scheduleWithFixedDelay(() -> syncTo(appendedSequence), syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Returns once the record is in the mapped segment and, with {@link WalSyncPolicy#ALWAYS}, forced to disk.
+     * @throws IllegalArgumentException if the record is empty or can never fit in a segment.
+     */
+    @Override
+    public long append(byte[] payload) {
+        return append(payload, sequence -> { });
+    }
+
+    @Override
+    public long append(byte[] payload, LongConsumer onAppended) {
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("Record is empty");
+        }
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds the segment size of " + segmentBytes);
+        }
+        long sequence;
+        synchronized (appendLock) {
+            if (segment.remaining() < recordBytes) {
+                roll();
+            }
+            sequence = nextSequence++;
+            crc.reset();
+            crc.update(payload, 0, payload.length);
+            int position = segment.position();
+            segment.putInt(position + 4, (int) crc.getValue());
+            segment.putLong(position + 8, sequence);
+            segment.position(position + HEADER_BYTES);
+            segment.put(payload);
+            segment.putInt(position, payload.length);
+            appendedSequence = sequence;
+            onAppended.accept(sequence);
+        }
+        if (syncPolicy == WalSyncPolicy.ALWAYS) {
+            syncTo(sequence);
+        }
+        return sequence;
+    }
+
+    @Override
+    public void replay(long afterSequence, Consumer<WalRecord> consumer) {
+        List<Map.Entry<Long, Path>> toRead;
+        synchronized (appendLock) {
+            toRead = new ArrayList<>(segments.entrySet());
+        }
+        for (int i = 0; i < toRead.size(); i++) {
+            boolean later = i + 1 < toRead.size() && toRead.get(i + 1).getKey() <= afterSequence + 1;
+            if (later) {
+                continue;
+            }
+            try {
+                scan(map(toRead.get(i).getValue(), FileChannel.MapMode.READ_ONLY), afterSequence, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read write-ahead log segment " + toRead.get(i).getValue(), e);
+            }
+        }
+    }
+
+    @Override
+    public void truncateBefore(long sequence) {
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (appendLock) {
+            Long next;
+            while ((next = segments.higherKey(segments.firstKey())) != null && next <= sequence) {
+                obsolete.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        for (Path file : obsolete) {
+            try {
+                Files.deleteIfExists(file);
+                log.info("Deleted applied write-ahead log segment {}", file.getFileName());
+            } catch (IOException e) {
+                log.warn("Failed to delete write-ahead log segment {}", file, e);
+            }
+        }
+    }
+
+    public long syncCount() {
+        return syncs.get();
+    }
+
+    @Override
+    public void close() {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        syncTo(appendedSequence);
+    }
+
+    /**
+     * Group sync: whoever holds the sync lock forces everything appended so far, so appenders that queued behind it
+     * usually find their record already covered. A segment that was rolled away was forced when it was rolled.
+     */
+    private void syncTo(long sequence) {
+        if (syncedSequence >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            MappedByteBuffer current;
+            long upTo;
+            synchronized (appendLock) {
+                current = segment;
+                upTo = appendedSequence;
+            }
+            current.force();
+            syncs.incrementAndGet();
+            syncedSequence = upTo;
+        }
+    }
+
+    private void open() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        }
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            startSegment();
+            return;
+        }
+
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        segment = map(last.getValue(), FileChannel.MapMode.READ_WRITE);
+        AtomicLong lastSequence = new AtomicLong(last.getKey() - 1);
+        int end = scan(segment, 0, record -> lastSequence.set(record.getSequence()));
+        if (hasBytesFrom(segment, end)) {
+            log.warn("Clearing torn write-ahead log record at offset {} of {}", end, last.getValue().getFileName());
+            for (int i = end; i < segmentBytes; i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+        segment.position(end);
+        nextSequence = lastSequence.get() + 1;
+        appendedSequence = lastSequence.get();
+        syncedSequence = lastSequence.get();
+        log.info("Opened write-ahead log in {} with {} segments, next sequence {}", directory, segments.size(), nextSequence);
+    }
+
+    private void roll() {
+        segment.force();
+        syncs.incrementAndGet();
+        try {
+            startSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start write-ahead log segment in " + directory, e);
+        }
+    }
+
+    private void startSegment() throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", nextSequence, SEGMENT_SUFFIX));
+        segment = map(file, FileChannel.MapMode.READ_WRITE);
+        segments.put(nextSequence, file);
+    }
+
+    private MappedByteBuffer map(Path file, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(mode, 0, mode == FileChannel.MapMode.READ_ONLY ? channel.size() : segmentBytes);
+        }
+    }
+
+    private static boolean hasBytesFrom(ByteBuffer buffer, int offset) {
+        for (int i = offset; i < buffer.limit(); i++) {
+            if (buffer.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the offset just past the last intact record.
+     */
+    private static int scan(ByteBuffer buffer, long afterSequence, Consumer<WalRecord> consumer) {
+        CRC32 check = new CRC32();
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.limit() - position - HEADER_BYTES) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + HEADER_BYTES);
+            view.get(payload);
+            check.reset();
+            check.update(payload, 0, length);
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            long sequence = buffer.getLong(position + 8);
+            if (sequence > afterSequence) {
+                consumer.accept(new WalRecord(sequence, payload));
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+}
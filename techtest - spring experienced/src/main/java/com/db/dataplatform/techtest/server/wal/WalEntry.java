@@ -0,0 +1,50 @@
+package com.db.dataplatform.techtest.server.wal;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The change a write-ahead log record holds: a pushed envelope, the deletion of a name, or a block type update.
+ * An update is followed by an APPLIED record naming its sequence once it has passed its version check and been
+ * applied; one without is not replayed.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class WalEntry {
+
+    public enum Type {
+        PUSH, DELETE, BLOCK_TYPE, APPLIED
+    }
+
+    private Type type;
+
+    private String name;
+
+    private DataEnvelope envelope;
+
+    private BlockTypeEnum blockType;
+
+    private Long expectedVersion;
+
+    private Long appliedSequence;
+
+    public static WalEntry push(DataEnvelope envelope) {
+        return new WalEntry(Type.PUSH, envelope.getDataHeader().getName(), envelope, null, null, null);
+    }
+
+    public static WalEntry delete(String name) {
+        return new WalEntry(Type.DELETE, name, null, null, null, null);
+    }
+
+    public static WalEntry blockType(String name, BlockTypeEnum blockType, Long expectedVersion) {
+        return new WalEntry(Type.BLOCK_TYPE, name, null, blockType, expectedVersion, null);
+    }
+
+    public static WalEntry applied(long sequence) {
+        return new WalEntry(Type.APPLIED, null, null, null, null, sequence);
+    }
+}
@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.server.wal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class WalRecord {
+
+    private final long sequence;
+
+    private final byte[] payload;
+}
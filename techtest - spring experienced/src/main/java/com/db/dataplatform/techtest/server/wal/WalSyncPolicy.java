@@ -0,0 +1,20 @@
+package com.db.dataplatform.techtest.server.wal;
+
+/**
+ * When appended records are forced from the mapped segment to disk.
+ */
+public enum WalSyncPolicy {
+    /**
+     * Before the append returns. Concurrent appenders share one force, so a burst costs one sync per group.
+     */
+    ALWAYS,
+    /**
+     * On a timer. A process crash loses nothing, since the pages are already in the page cache, but a power
+     * failure can lose up to one interval of acknowledged records.
+     */
+    INTERVAL,
+    /**
+     * Whenever the operating system writes the pages back, and on close.
+     */
+    NONE
+}
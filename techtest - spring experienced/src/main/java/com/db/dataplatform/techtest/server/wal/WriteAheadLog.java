@@ -0,0 +1,29 @@
+package com.db.dataplatform.techtest.server.wal;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+public interface WriteAheadLog extends Closeable {
+
+    /**
+     * @return the sequence number of the record, increasing by one per append.
+     */
+    long append(byte[] payload);
+
+    /**
+     * As {@link #append(byte[])}, handing the sequence number to {@code onAppended} while appends are still
+     * serialised, so the calls happen in sequence order. It must not block.
+     */
+    long append(byte[] payload, LongConsumer onAppended);
+
+    /**
+     * Hands every intact record with a sequence number above {@code afterSequence} to the consumer, in order.
+     */
+    void replay(long afterSequence, Consumer<WalRecord> consumer);
+
+    /**
+     * Deletes segments that only hold records below {@code sequence}. The segment being written is kept.
+     */
+    void truncateBefore(long sequence);
+}
@@ -1,4 +1,4 @@
-create sequence if not exists SEQ_DATA_HEADER;
+create sequence if not exists SEQ_DATA_HEADER increment by 50;
 
 drop table if exists DATA_HEADER;
 
@@ -7,12 +7,26 @@ create table DATA_HEADER
     DATA_HEADER_ID      NUMBER NOT NULL,
     NAME                VARCHAR2(30 CHAR) NOT NULL,
     BLOCKTYPE           VARCHAR2(11 CHAR) NOT NULL,
+    VERSION             NUMBER DEFAULT 0 NOT NULL,
     CREATED_TIMESTAMP   TIMESTAMP (6) NOT NULL,
     CONSTRAINT PK_DATA_HEADER PRIMARY KEY (DATA_HEADER_ID),
     CONSTRAINT UK_DATA_HEADER UNIQUE (NAME)
 );
 
-create sequence if not exists SEQ_DATA_STORE;
+create index IDX_DATA_HEADER_BLOCKTYPE on DATA_HEADER (BLOCKTYPE);
+
+drop table if exists DATA_CONTENT;
+
+create table DATA_CONTENT
+(
+    CHECKSUM                VARCHAR2(32 CHAR) NOT NULL,
+    DATA_BODY               VARCHAR2(1000 CHAR) NOT NULL,
+    REF_COUNT               NUMBER NOT NULL,
+    CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
+    CONSTRAINT PK_DATA_CONTENT PRIMARY KEY (CHECKSUM)
+);
+
+create sequence if not exists SEQ_DATA_STORE increment by 50;
 
 drop table if exists DATA_STORE;
 
@@ -20,8 +34,36 @@ create table DATA_STORE
 (
     DATA_STORE_ID           NUMBER NOT NULL,
     DATA_HEADER_ID          NUMBER NOT NULL,
-    DATA_BODY               VARCHAR2(1000 CHAR) NOT NULL,
+    CONTENT_CHECKSUM        VARCHAR2(32 CHAR) NOT NULL,
     CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
     CONSTRAINT PK_DATA_STORE PRIMARY KEY (DATA_STORE_ID),
-    CONSTRAINT FK_DS_DH FOREIGN KEY (DATA_HEADER_ID) REFERENCES DATA_HEADER (DATA_HEADER_ID)
+    CONSTRAINT FK_DS_DH FOREIGN KEY (DATA_HEADER_ID) REFERENCES DATA_HEADER (DATA_HEADER_ID),
+    CONSTRAINT FK_DS_DC FOREIGN KEY (CONTENT_CHECKSUM) REFERENCES DATA_CONTENT (CHECKSUM)
+);
+
+create index IDX_DATA_STORE_CONTENT on DATA_STORE (CONTENT_CHECKSUM);
+
+drop table if exists DATA_BODY_CHUNK;
+
+create table DATA_BODY_CHUNK
+(
+    DATA_HEADER_ID          NUMBER NOT NULL,
+    CHUNK_NO                NUMBER NOT NULL,
+    CHUNK_DATA              BLOB NOT NULL,
+    CONSTRAINT PK_DATA_BODY_CHUNK PRIMARY KEY (DATA_HEADER_ID, CHUNK_NO),
+    CONSTRAINT FK_DBC_DH FOREIGN KEY (DATA_HEADER_ID) REFERENCES DATA_HEADER (DATA_HEADER_ID)
+);
+
+drop table if exists DATA_CHUNKED_BODY;
+
+create table DATA_CHUNKED_BODY
+(
+    DATA_HEADER_ID          NUMBER NOT NULL,
+    BODY_BYTES              NUMBER NOT NULL,
+    CHUNK_COUNT             NUMBER NOT NULL,
+    CHECKSUM_ALGORITHM      VARCHAR2(8 CHAR) NOT NULL,
+    CHECKSUM                VARCHAR2(32 CHAR) NOT NULL,
+    CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
+    CONSTRAINT PK_DATA_CHUNKED_BODY PRIMARY KEY (DATA_HEADER_ID),
+    CONSTRAINT FK_DCB_DH FOREIGN KEY (DATA_HEADER_ID) REFERENCES DATA_HEADER (DATA_HEADER_ID)
 );
\ No newline at end of file
@@ -6,12 +6,19 @@ import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.xml.bind.DatatypeConverter;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
 public class TestDataHelper {
 
     public static final String TEST_NAME = "Test";
@@ -37,8 +44,7 @@ public class TestDataHelper {
         DataBody dataBody = new DataBody(DUMMY_DATA);
         DataHeader dataHeader = new DataHeader(TEST_NAME, BlockTypeEnum.BLOCKTYPEA);
         MessageDigest md = MessageDigest.getInstance("MD5");
-        md.digest(dataBody.toString().getBytes());
-        byte[] digest = md.digest();
+        byte[] digest = md.digest(dataBody.getDataBody().getBytes(StandardCharsets.UTF_8));
         String myHash = DatatypeConverter
                 .printHexBinary(digest).toLowerCase();
         DataEnvelope dataEnvelope = new DataEnvelope(dataHeader, dataBody, myHash);
@@ -58,11 +64,21 @@ public class TestDataHelper {
         DataBody dataBody = new DataBody(DUMMY_DATA);
         DataHeader dataHeader = new DataHeader(TEST_NAME_EMPTY, BlockTypeEnum.BLOCKTYPEA);
         MessageDigest md = MessageDigest.getInstance("MD5");
-        md.digest(dataBody.toString().getBytes());
-        byte[] digest = md.digest();
+        byte[] digest = md.digest(dataBody.getDataBody().getBytes(StandardCharsets.UTF_8));
         String myHash = DatatypeConverter
                 .printHexBinary(digest).toLowerCase();
         DataEnvelope dataEnvelope = new DataEnvelope(dataHeader, dataBody, myHash);
         return dataEnvelope;
     }
+
+    /**
+     * Makes a mocked TransactionTemplate run every callback it is given, with no transaction status.
+     */
+    public static void runTransactions(TransactionTemplate transactionTemplateMock) {
+        when(transactionTemplateMock.execute(any())).thenAnswer(TestDataHelper::inTransaction);
+    }
+
+    public static Object inTransaction(InvocationOnMock invocation) {
+        return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+    }
 }
@@ -0,0 +1,174 @@
+package com.db.dataplatform.techtest.api;
+
+import com.db.dataplatform.techtest.TestDataHelper;
+import com.db.dataplatform.techtest.server.api.ContentEncodingFilter;
+import com.db.dataplatform.techtest.server.api.RestResponseEntityExceptionHandler;
+import com.db.dataplatform.techtest.server.api.controller.ServerController;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.api.model.ContentCoding;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ContentEncodingFilterTests {
+
+    private static final String URI_PUSHDATA = "/dataserver/pushdata";
+    private static final String URI_GETDATA = "/dataserver/data/BLOCKTYPEA";
+    private static final long MAX_DECODED_BYTES = 64 * 1024;
+
+    @Mock
+    private Server serverMock;
+
+    private ObjectMapper objectMapper;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ServerController serverController = new ServerController(serverMock, objectMapper);
+        mockMvc = standaloneSetup(serverController)
+                .setControllerAdvice(new RestResponseEntityExceptionHandler())
+                .addFilters(new ContentEncodingFilter(MAX_DECODED_BYTES, 256, Arrays.asList(ContentCoding.LZ4, ContentCoding.GZIP)))
+                .build();
+    }
+
+    @Test
+    public void gzipRequestBodyIsDecoded() throws Exception {
+        when(serverMock.saveDataEnvelope(any(DataEnvelope.class), eq(ChecksumAlgorithm.MD5))).thenReturn(true);
+        byte[] json = objectMapper.writeValueAsBytes(TestDataHelper.createTestDataEnvelopeApiObject());
+
+        MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
+                        .content(encode(ContentCoding.GZIP, json))
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("true");
+    }
+
+    @Test
+    public void smallResponseIsSentUnencoded() throws Exception {
+        when(serverMock.saveDataEnvelope(any(DataEnvelope.class), eq(ChecksumAlgorithm.MD5))).thenReturn(true);
+        byte[] json = objectMapper.writeValueAsBytes(TestDataHelper.createTestDataEnvelopeApiObject());
+
+        MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
+                        .content(json)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, lz4")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("true");
+    }
+
+    @Test
+    public void responseIsEncodedWithPreferredAcceptedCoding() throws Exception {
+        List<DataBodyEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(TestDataHelper.createTestDataBodyEntity(TestDataHelper.createTestDataHeaderEntity(null)));
+        }
+        when(serverMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(rows);
+
+        MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, lz4;q=0.5, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "lz4"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+
+        byte[] encoded = mvcResult.getResponse().getContentAsByteArray();
+        JsonNode body = objectMapper.readTree(decode(ContentCoding.LZ4, encoded));
+        assertThat(body.size()).isEqualTo(20);
+        assertThat(encoded.length).isLessThan(objectMapper.writeValueAsBytes(rows).length);
+    }
+
+    @Test
+    public void refusedCodingIsNotUsed() throws Exception {
+        List<DataBodyEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(TestDataHelper.createTestDataBodyEntity(TestDataHelper.createTestDataHeaderEntity(null)));
+        }
+        when(serverMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(rows);
+
+        mockMvc.perform(get(URI_GETDATA)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "lz4;q=0, *"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    public void decompressionBombIsRejectedAsTooLarge() throws Exception {
+        byte[] bomb = new byte[(int) MAX_DECODED_BYTES * 16];
+        Arrays.fill(bomb, (byte) ' ');
+
+        mockMvc.perform(post(URI_PUSHDATA)
+                        .content(encode(ContentCoding.GZIP, bomb))
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    public void unsupportedRequestCodingIsRejected() throws Exception {
+        mockMvc.perform(post(URI_PUSHDATA)
+                        .content(new byte[]{1, 2, 3})
+                        .header(HttpHeaders.CONTENT_ENCODING, "br")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isUnsupportedMediaType())
+                .andExpect(header().string(HttpHeaders.ACCEPT_ENCODING, "gzip, lz4"));
+    }
+
+    private static byte[] encode(ContentCoding coding, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream encoded = coding.encode(out)) {
+            encoded.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(ContentCoding coding, byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream decoded = coding.decode(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[4096];
+            for (int n; (n = decoded.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.db.dataplatform.techtest.api.controller;
+
+import com.db.dataplatform.techtest.TestDataHelper;
+import com.db.dataplatform.techtest.server.api.RestResponseEntityExceptionHandler;
+import com.db.dataplatform.techtest.server.api.controller.AsyncServerController;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.AsyncServer;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncServerControllerComponentTest {
+
+	public static final String URI_PUSHDATA = "/dataserver/async/pushdata";
+	public static final String URI_GETDATA = "/dataserver/async/data/{blockType}";
+
+	@Mock
+	private AsyncServer asyncServerMock;
+
+	private ObjectMapper objectMapper;
+	private MockMvc mockMvc;
+
+	@Before
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		mockMvc = standaloneSetup(new AsyncServerController(asyncServerMock))
+				.setControllerAdvice(new RestResponseEntityExceptionHandler())
+				.build();
+	}
+
+	@Test
+	public void testPushDataCompletesAsynchronously() throws Exception {
+		CompletableFuture<Boolean> saved = new CompletableFuture<>();
+		when(asyncServerMock.saveDataEnvelope(any(DataEnvelope.class), eq(ChecksumAlgorithm.MD5))).thenReturn(saved);
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
+						.content(objectMapper.writeValueAsString(TestDataHelper.createTestDataEnvelopeApiObject()))
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		saved.complete(true);
+
+		MvcResult dispatched = mockMvc.perform(asyncDispatch(mvcResult))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertThat(dispatched.getResponse().getContentAsString()).isEqualTo("true");
+	}
+
+	@Test
+	public void testPushDataReturnsServiceUnavailableWhenExecutorIsFull() throws Exception {
+		CompletableFuture<Boolean> rejected = new CompletableFuture<>();
+		rejected.completeExceptionally(new RejectedExecutionException("full"));
+		when(asyncServerMock.saveDataEnvelope(any(DataEnvelope.class), eq(ChecksumAlgorithm.MD5))).thenReturn(rejected);
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
+						.content(objectMapper.writeValueAsString(TestDataHelper.createTestDataEnvelopeApiObject()))
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(mvcResult))
+				.andExpect(status().isServiceUnavailable());
+	}
+
+	@Test
+	public void testGetDataReturnsNotFoundForEmptyBlockType() throws Exception {
+		when(asyncServerMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEB))
+				.thenReturn(CompletableFuture.completedFuture(Collections.<DataBodyEntity>emptyList()));
+
+		MvcResult mvcResult = mockMvc.perform(get(URI_GETDATA, BlockTypeEnum.BLOCKTYPEB))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(mvcResult))
+				.andExpect(status().isNotFound());
+	}
+}
@@ -1,11 +1,17 @@
 package com.db.dataplatform.techtest.api.controller;
 
 import com.db.dataplatform.techtest.TestDataHelper;
+import com.db.dataplatform.techtest.server.api.RestResponseEntityExceptionHandler;
 import com.db.dataplatform.techtest.server.api.controller.ServerController;
+import com.db.dataplatform.techtest.server.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.server.api.model.BatchItemStatus;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.exception.DataNameTakenException;
 import com.db.dataplatform.techtest.server.exception.HadoopClientException;
 import com.db.dataplatform.techtest.server.component.Server;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -16,28 +22,41 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.util.UriTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
@@ -47,6 +66,9 @@ public class ServerControllerComponentTest {
 	public static final String URI_PUSHDATA = "http://localhost:8090/dataserver/pushdata";
 	public static final UriTemplate URI_GETDATA = new UriTemplate("http://localhost:8090/dataserver/data/{blockType}");
 	public static final UriTemplate URI_PATCHDATA = new UriTemplate("http://localhost:8090/dataserver/update/{name}/{newBlockType}");
+	public static final UriTemplate URI_PUSHCHUNKED = new UriTemplate("http://localhost:8090/dataserver/pushdata/chunked/{name}/{blockType}");
+	public static final UriTemplate URI_GETCHUNKED = new UriTemplate("http://localhost:8090/dataserver/data/chunked/{name}");
+	public static final UriTemplate URI_DELETEDATA = new UriTemplate("http://localhost:8090/dataserver/delete/{name}");
 
 	@Mock
 	private Server serverMock;
@@ -58,18 +80,18 @@ public class ServerControllerComponentTest {
 
 	@Before
 	public void setUp() throws HadoopClientException, NoSuchAlgorithmException, IOException {
-		serverController = new ServerController(serverMock);
-		mockMvc = standaloneSetup(serverController).build();
 		objectMapper = Jackson2ObjectMapperBuilder
 				.json()
 				.build();
+		serverController = new ServerController(serverMock, objectMapper);
+		mockMvc = standaloneSetup(serverController).build();
 
 	}
 
 	@Test
 	public void testPushDataPostCallWorksAsExpected() throws Exception {
 
-		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(true);
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class), eq(ChecksumAlgorithm.MD5))).thenReturn(true);
 
 		testDataEnvelope = TestDataHelper.createTestDataEnvelopeApiObject();
 		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
@@ -100,6 +122,69 @@ public class ServerControllerComponentTest {
 		assertThat(checksumPass).isFalse();
 	}
 
+	@Test
+	public void testPushDataUsesChecksumAlgorithmFromHeader() throws Exception {
+
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class), eq(ChecksumAlgorithm.XXHASH64))).thenReturn(true);
+
+		testDataEnvelope = TestDataHelper.createTestDataEnvelopeApiObject();
+		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
+						.content(testDataEnvelopeJson)
+						.header(ServerController.CHECKSUM_ALGORITHM_HEADER, ChecksumAlgorithm.XXHASH64.name())
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(Boolean.parseBoolean(mvcResult.getResponse().getContentAsString())).isTrue();
+	}
+
+	@Test
+	public void testPushDataReadsAndWritesSmile() throws Exception {
+
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class), eq(ChecksumAlgorithm.MD5))).thenReturn(true);
+		ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+		MockMvc smileMockMvc = standaloneSetup(serverController)
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper), new MappingJackson2SmileHttpMessageConverter(smileMapper))
+				.build();
+
+		testDataEnvelope = TestDataHelper.createTestDataEnvelopeApiObject();
+
+		MvcResult mvcResult = smileMockMvc.perform(post(URI_PUSHDATA)
+						.content(smileMapper.writeValueAsBytes(testDataEnvelope))
+						.contentType(ServerController.APPLICATION_SMILE_VALUE)
+						.accept(ServerController.APPLICATION_SMILE_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentType()).isEqualTo(ServerController.APPLICATION_SMILE_VALUE);
+		assertThat(smileMapper.readValue(mvcResult.getResponse().getContentAsByteArray(), Boolean.class)).isTrue();
+	}
+
+	@Test
+	public void testPushDataBatchReturnsPerItemResults() throws Exception {
+
+		List<BatchItemResult> expected = Arrays.asList(
+				new BatchItemResult(0, TestDataHelper.TEST_NAME, BatchItemStatus.PERSISTED),
+				new BatchItemResult(1, TestDataHelper.TEST_NAME, BatchItemStatus.CHECKSUM_FAILED));
+		when(serverMock.saveDataEnvelopes(anyList(), eq(ChecksumAlgorithm.MD5))).thenReturn(expected);
+
+		String batchJson = objectMapper.writeValueAsString(Arrays.asList(
+				TestDataHelper.createTestDataEnvelopeApiObject(), TestDataHelper.createTestDataEnvIncorrectHash()));
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA + "/batch")
+						.content(batchJson)
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		List<BatchItemResult> results = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+				new TypeReference<List<BatchItemResult>>() {});
+		Assertions.assertEquals(2, results.size());
+		Assertions.assertEquals(BatchItemStatus.CHECKSUM_FAILED, results.get(1).getStatus());
+	}
+
 	@Test
 	public void testGetDataSucess() throws Exception {
 
@@ -138,29 +223,88 @@ public class ServerControllerComponentTest {
 	}
 
 
+	@Test
+	public void testGetDataPageReturnsCursorForNextPage() throws Exception {
+
+		DataBodyEntity first = new DataBodyEntity();
+		first.setDataStoreId(11L);
+		DataBodyEntity second = new DataBodyEntity();
+		second.setDataStoreId(12L);
+		when(serverMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 10L, 2)).thenReturn(Arrays.asList(first, second));
+
+		MvcResult mvcResult = mockMvc.perform(
+						get(String.valueOf(URI_GETDATA), BlockTypeEnum.BLOCKTYPEA)
+								.param("limit", "2")
+								.param("after", "10"))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		Assertions.assertEquals("12", mvcResult.getResponse().getHeader(ServerController.NEXT_PAGE_HEADER));
+	}
+
+	@Test
+	public void testGetDataLastPageHasNoCursor() throws Exception {
+
+		DataBodyEntity last = new DataBodyEntity();
+		last.setDataStoreId(13L);
+		when(serverMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 12L, 2)).thenReturn(Arrays.asList(last));
+
+		MvcResult mvcResult = mockMvc.perform(
+						get(String.valueOf(URI_GETDATA), BlockTypeEnum.BLOCKTYPEA)
+								.param("limit", "2")
+								.param("after", "12"))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		Assertions.assertNull(mvcResult.getResponse().getHeader(ServerController.NEXT_PAGE_HEADER));
+	}
+
+	@Test
+	public void testStreamDataWritesOneJsonDocumentPerLine() throws Exception {
+
+		doAnswer(invocation -> {
+			Consumer<DataBodyEntity> consumer = invocation.getArgument(1);
+			for (String name : Arrays.asList("first", "second")) {
+				DataHeaderEntity dh = new DataHeaderEntity();
+				dh.setName(name);
+				dh.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+				DataBodyEntity db = new DataBodyEntity();
+				db.setDataHeaderEntity(dh);
+				consumer.accept(db);
+			}
+			return null;
+		}).when(serverMock).streamDataByBlockType(eq(BlockTypeEnum.BLOCKTYPEA), any());
+
+		MvcResult mvcResult = mockMvc.perform(
+						get(String.valueOf(URI_GETDATA), BlockTypeEnum.BLOCKTYPEA)
+								.accept(ServerController.APPLICATION_NDJSON_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult))
+				.andExpect(status().isOk());
+
+		String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+		Assertions.assertEquals(2, lines.length);
+		Assertions.assertEquals("second", objectMapper.readValue(lines[1], DataBodyEntity.class).getDataHeaderEntity().getName());
+	}
+
 	@Test
 	public void testpatchHeaderSuccess() throws Exception {
-		DataBodyEntity db = new DataBodyEntity();
-		DataHeaderEntity dh = new DataHeaderEntity();
-		dh.setName("test");
-		dh.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
-		db.setDataHeaderEntity(dh);
-		db.setDataBody("test12333");
 		String headerName = "test";
-		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(true);
-		when(serverMock.getDataByBlockByName(headerName)).thenReturn(Optional.of(db));
+		when(serverMock.updateBlockType(headerName, BlockTypeEnum.BLOCKTYPEB, null)).thenReturn(Optional.of(1L));
 		MvcResult mvcResult = mockMvc.perform(
-						put(String.valueOf(URI_PATCHDATA), headerName, BlockTypeEnum.BLOCKTYPEA.toString()))
+						put(String.valueOf(URI_PATCHDATA), headerName, BlockTypeEnum.BLOCKTYPEB.toString()))
 				.andExpect(status().isOk())
 				.andReturn();
-		Assertions.assertTrue(mvcResult.getResponse().getBufferSize() >0 );
+		Assertions.assertTrue(Boolean.parseBoolean(mvcResult.getResponse().getContentAsString()));
+		Assertions.assertEquals("\"1\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+		verify(serverMock, never()).getDataByBlockByName(any());
 	}
 
 	@Test
 	public void testpatchHeaderFail() throws Exception {
 		String headerName = "test";
-		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(false);
-		when(serverMock.getDataByBlockByName(headerName)).thenReturn(Optional.empty());
+		when(serverMock.updateBlockType(headerName, BlockTypeEnum.BLOCKTYPEA, null)).thenReturn(Optional.empty());
 
 		MvcResult mvcResult = mockMvc.perform(
 						put(String.valueOf(URI_PATCHDATA), headerName, BlockTypeEnum.BLOCKTYPEA.toString()))
@@ -169,6 +313,113 @@ public class ServerControllerComponentTest {
 		Assertions.assertTrue(mvcResult.getResponse().getBufferSize() >0);
 	}
 
+	@Test
+	public void testpatchHeaderPassesIfMatchAsTheExpectedVersion() throws Exception {
+		String headerName = "test";
+		when(serverMock.updateBlockType(headerName, BlockTypeEnum.BLOCKTYPEB, 3L)).thenReturn(Optional.of(4L));
+
+		MvcResult mvcResult = mockMvc.perform(
+						put(String.valueOf(URI_PATCHDATA), headerName, BlockTypeEnum.BLOCKTYPEB.toString())
+								.header(HttpHeaders.IF_MATCH, "\"3\""))
+				.andExpect(status().isOk())
+				.andReturn();
+		Assertions.assertEquals("\"4\"", mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void testpatchHeaderRefusesAnIfMatchThatIsNoVersion() throws Exception {
+		mockMvc.perform(
+						put(String.valueOf(URI_PATCHDATA), "test", BlockTypeEnum.BLOCKTYPEB.toString())
+								.header(HttpHeaders.IF_MATCH, "\"abc\""))
+				.andExpect(status().isPreconditionFailed());
+		verify(serverMock, never()).updateBlockType(any(), any(), any());
+	}
+
+	@Test
+	public void testPushChunkedDataPassesTheRawBodyAndChecksumHeaders() throws Exception {
+
+		when(serverMock.saveChunkedData(any(), eq(ChecksumAlgorithm.CRC32), eq("cafebabe"), any(InputStream.class))).thenReturn(true);
+
+		MvcResult mvcResult = mockMvc.perform(
+						post(String.valueOf(URI_PUSHCHUNKED), "LARGE", BlockTypeEnum.BLOCKTYPEB)
+								.content(TestDataHelper.DUMMY_DATA)
+								.contentType(MediaType.APPLICATION_OCTET_STREAM)
+								.header(ServerController.CHECKSUM_HEADER, "cafebabe")
+								.header(ServerController.CHECKSUM_ALGORITHM_HEADER, ChecksumAlgorithm.CRC32.name()))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(Boolean.parseBoolean(mvcResult.getResponse().getContentAsString())).isTrue();
+	}
+
+	@Test
+	public void testPushChunkedDataUnderATakenNameIsAConflict() throws Exception {
+
+		when(serverMock.saveChunkedData(any(), any(), any(), any(InputStream.class)))
+				.thenThrow(new DataNameTakenException("LARGE", null));
+		MockMvc advisedMockMvc = standaloneSetup(serverController)
+				.setControllerAdvice(new RestResponseEntityExceptionHandler())
+				.build();
+
+		advisedMockMvc.perform(
+						post(String.valueOf(URI_PUSHCHUNKED), "LARGE", BlockTypeEnum.BLOCKTYPEB)
+								.content(TestDataHelper.DUMMY_DATA)
+								.contentType(MediaType.APPLICATION_OCTET_STREAM)
+								.header(ServerController.CHECKSUM_HEADER, "cafebabe"))
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	public void testGetChunkedDataStreamsTheStoredBody() throws Exception {
+
+		ChunkedBodyEntity chunkedBody = new ChunkedBodyEntity();
+		chunkedBody.setBodyBytes(TestDataHelper.DUMMY_DATA.length());
+		chunkedBody.setChecksumAlgorithm(ChecksumAlgorithm.MD5);
+		chunkedBody.setChecksum("abc");
+		when(serverMock.getChunkedDataByName("LARGE")).thenReturn(Optional.of(chunkedBody));
+		doAnswer(invocation -> {
+			invocation.<OutputStream>getArgument(1).write(TestDataHelper.DUMMY_DATA.getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(serverMock).streamChunkedData(eq(chunkedBody), any());
+
+		MvcResult mvcResult = mockMvc.perform(get(String.valueOf(URI_GETCHUNKED), "LARGE"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult))
+				.andExpect(status().isOk());
+
+		assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(TestDataHelper.DUMMY_DATA);
+		assertThat(mvcResult.getResponse().getHeader(ServerController.CHECKSUM_HEADER)).isEqualTo("abc");
+		assertThat(mvcResult.getResponse().getContentLengthLong()).isEqualTo(TestDataHelper.DUMMY_DATA.length());
+	}
+
+	@Test
+	public void testGetChunkedDataNotFound() throws Exception {
+
+		when(serverMock.getChunkedDataByName("MISSING")).thenReturn(Optional.empty());
+
+		mockMvc.perform(get(String.valueOf(URI_GETCHUNKED), "MISSING"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	public void testDeleteDataSuccess() throws Exception {
+
+		when(serverMock.deleteDataByName("test")).thenReturn(true);
+
+		mockMvc.perform(delete(String.valueOf(URI_DELETEDATA), "test"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void testDeleteDataNotFound() throws Exception {
+
+		when(serverMock.deleteDataByName("MISSING")).thenReturn(false);
+
+		mockMvc.perform(delete(String.valueOf(URI_DELETEDATA), "MISSING"))
+				.andExpect(status().isNotFound());
+	}
+
 	@Test
 	public void testHadoopCallPass() {
 		// TODO
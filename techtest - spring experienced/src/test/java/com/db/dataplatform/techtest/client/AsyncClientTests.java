@@ -0,0 +1,93 @@
+package com.db.dataplatform.techtest.client;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.component.HadoopForwarder;
+import com.db.dataplatform.techtest.client.component.impl.AsyncClientImpl;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.impl.ChecksumCalculatorImpl;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncClientTests {
+
+    @Mock
+    private CloseableHttpAsyncClient httpAsyncClientMock;
+
+    @Mock
+    private HadoopForwarder hadoopForwarderMock;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private AsyncClientImpl asyncClient;
+
+    @Before
+    public void setup() {
+        asyncClient = new AsyncClientImpl(httpAsyncClientMock, objectMapper, hadoopForwarderMock,
+                new ChecksumCalculatorImpl(), ChecksumAlgorithm.MD5, 1);
+    }
+
+    @Test
+    public void shouldReadTheRowsTheDataEndpointReturns() throws Exception {
+        DataBodyEntity stored = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        stored.setDataStoreId(1L);
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(Collections.singletonList(stored)), ContentType.APPLICATION_JSON));
+        when(httpAsyncClientMock.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(invocation -> {
+            invocation.<FutureCallback<HttpResponse>>getArgument(1).completed(response);
+            return null;
+        });
+
+        List<DataEnvelope> data = asyncClient.getData(BlockTypeEnum.BLOCKTYPEA.name()).get(10, TimeUnit.SECONDS);
+
+        assertThat(data).hasSize(1);
+        assertThat(data.get(0).getDataHeader().getName()).isEqualTo(TEST_NAME);
+        assertThat(data.get(0).getDataHeader().getBlockType()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+        assertThat(data.get(0).getDataBody().getDataBody()).isEqualTo(DUMMY_DATA);
+    }
+
+    @Test
+    public void shouldReturnThePermitWhenTheClientRefusesTheRequest() {
+        when(httpAsyncClientMock.execute(any(HttpUriRequest.class), any(FutureCallback.class)))
+                .thenThrow(new IllegalStateException("Request cannot be executed; I/O reactor status: STOPPED"));
+
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<Boolean> update = asyncClient.updateData("Test", "BLOCKTYPEA");
+
+            assertThatThrownBy(() -> update.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(asyncClient.getInFlight()).isZero();
+        }
+    }
+}
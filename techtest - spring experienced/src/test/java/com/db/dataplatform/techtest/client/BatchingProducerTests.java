@@ -0,0 +1,222 @@
+package com.db.dataplatform.techtest.client;
+
+import com.db.dataplatform.techtest.client.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.client.api.model.DataBody;
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.api.model.DataHeader;
+import com.db.dataplatform.techtest.client.component.impl.BatchingProducerImpl;
+import com.db.dataplatform.techtest.server.api.model.BatchItemStatus;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.impl.ChecksumCalculatorImpl;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.client.component.impl.ClientImpl.URI_PUSHDATA_BATCH;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingProducerTests {
+
+    private static final long LONG_LINGER_MS = TimeUnit.SECONDS.toMillis(30);
+
+    @Mock
+    private RestTemplate restTemplateMock;
+
+    private BatchingProducerImpl batchingProducer;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (batchingProducer != null) {
+            batchingProducer.close();
+        }
+    }
+
+    @Test
+    public void shouldSendAFullBatchInOneRequest() throws Exception {
+        batchingProducer = producer(3, LONG_LINGER_MS);
+        whenBatchSent().thenAnswer(BatchingProducerTests::persistAll);
+
+        List<CompletableFuture<BatchItemResult>> sent = new ArrayList<>();
+        for (String name : new String[]{"A", "B", "C"}) {
+            sent.add(batchingProducer.send(envelope(name)));
+        }
+
+        for (int i = 0; i < sent.size(); i++) {
+            BatchItemResult result = sent.get(i).get(10, TimeUnit.SECONDS);
+            assertThat(result.getIndex()).isEqualTo(i);
+            assertThat(result.getStatus()).isEqualTo(BatchItemStatus.PERSISTED);
+        }
+        ArgumentCaptor<HttpEntity<List<DataEnvelope>>> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplateMock, times(1)).exchange(eq(URI_PUSHDATA_BATCH), eq(HttpMethod.POST), request.capture(), anyResultType());
+        assertThat(request.getValue().getBody()).extracting(envelope -> envelope.getDataHeader().getName())
+                .containsExactly("A", "B", "C");
+    }
+
+    @Test
+    public void shouldRetryAnEnvelopeTheServerFailedToPersist() throws Exception {
+        batchingProducer = producer(1, 0);
+        whenBatchSent()
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(new BatchItemResult(0, "A", BatchItemStatus.PERSISTENCE_FAILED))))
+                .thenAnswer(BatchingProducerTests::persistAll);
+
+        BatchItemResult result = batchingProducer.send(envelope("A")).get(10, TimeUnit.SECONDS);
+
+        assertThat(result.getStatus()).isEqualTo(BatchItemStatus.PERSISTED);
+        verifyBatchesSent(2);
+    }
+
+    @Test
+    public void shouldResendABatchLostToATransportError() throws Exception {
+        batchingProducer = producer(1, 0);
+        whenBatchSent()
+                .thenThrow(new ResourceAccessException("Connection reset"))
+                .thenAnswer(BatchingProducerTests::persistAll);
+
+        BatchItemResult result = batchingProducer.send(envelope("A")).get(10, TimeUnit.SECONDS);
+
+        assertThat(result.getStatus()).isEqualTo(BatchItemStatus.PERSISTED);
+        verifyBatchesSent(2);
+    }
+
+    @Test
+    public void shouldFailAnEnvelopeOnceItsRetriesAreSpent() {
+        batchingProducer = producer(1, 0);
+        whenBatchSent().thenThrow(new ResourceAccessException("Connection refused"));
+
+        CompletableFuture<BatchItemResult> sent = batchingProducer.send(envelope("A"));
+
+        assertThatThrownBy(() -> sent.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(ResourceAccessException.class);
+        verifyBatchesSent(3);
+    }
+
+    @Test
+    public void shouldNotResendABatchTheServerRefused() {
+        batchingProducer = producer(1, 0);
+        whenBatchSent().thenThrow(new HttpClientErrorException(HttpStatus.PAYLOAD_TOO_LARGE));
+
+        CompletableFuture<BatchItemResult> sent = batchingProducer.send(envelope("A"));
+
+        assertThatThrownBy(() -> sent.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpClientErrorException.class);
+        verifyBatchesSent(1);
+    }
+
+    @Test
+    public void shouldResendABatchAfterAServerError() throws Exception {
+        batchingProducer = producer(1, 0);
+        whenBatchSent()
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                .thenAnswer(BatchingProducerTests::persistAll);
+
+        BatchItemResult result = batchingProducer.send(envelope("A")).get(10, TimeUnit.SECONDS);
+
+        assertThat(result.getStatus()).isEqualTo(BatchItemStatus.PERSISTED);
+        verifyBatchesSent(2);
+    }
+
+    @Test
+    public void shouldFailOnlyTheBatchWithAResultIndexOutOfRange() throws Exception {
+        batchingProducer = producer(1, 0);
+        whenBatchSent()
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(new BatchItemResult(5, "A", BatchItemStatus.PERSISTED))))
+                .thenAnswer(BatchingProducerTests::persistAll);
+
+        CompletableFuture<BatchItemResult> first = batchingProducer.send(envelope("A"));
+        assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(batchingProducer.send(envelope("B")).get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(BatchItemStatus.PERSISTED);
+    }
+
+    @Test
+    public void shouldKeepSendingAfterABatchFailsUnexpectedly() throws Exception {
+        batchingProducer = producer(1, 0);
+        whenBatchSent()
+                .thenThrow(new IllegalArgumentException("Unexpected"))
+                .thenAnswer(BatchingProducerTests::persistAll);
+
+        CompletableFuture<BatchItemResult> first = batchingProducer.send(envelope("A"));
+        assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+
+        assertThat(batchingProducer.send(envelope("B")).get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(BatchItemStatus.PERSISTED);
+    }
+
+    @Test
+    public void shouldDrainTheBufferOnClose() throws Exception {
+        batchingProducer = producer(100, LONG_LINGER_MS);
+        whenBatchSent().thenAnswer(BatchingProducerTests::persistAll);
+        CompletableFuture<BatchItemResult> first = batchingProducer.send(envelope("A"));
+        CompletableFuture<BatchItemResult> second = batchingProducer.send(envelope("B"));
+
+        batchingProducer.close();
+
+        assertThat(first.isDone() && second.isDone()).isTrue();
+        assertThat(second.get().getStatus()).isEqualTo(BatchItemStatus.PERSISTED);
+        verifyBatchesSent(1);
+        assertThatThrownBy(() -> batchingProducer.send(envelope("C")).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Retries are capped at two, so an envelope is sent at most three times.
+     */
+    private BatchingProducerImpl producer(int batchSize, long lingerMs) {
+        return new BatchingProducerImpl(restTemplateMock, new ChecksumCalculatorImpl(), ChecksumAlgorithm.MD5,
+                batchSize, 1048576, lingerMs, 2, 1, 100, 10000, MediaType.APPLICATION_JSON);
+    }
+
+    private OngoingStubbing<ResponseEntity<List<BatchItemResult>>> whenBatchSent() {
+        return when(restTemplateMock.exchange(eq(URI_PUSHDATA_BATCH), eq(HttpMethod.POST), any(), anyResultType()));
+    }
+
+    private void verifyBatchesSent(int batches) {
+        verify(restTemplateMock, times(batches)).exchange(eq(URI_PUSHDATA_BATCH), eq(HttpMethod.POST), any(), anyResultType());
+    }
+
+    private static ParameterizedTypeReference<List<BatchItemResult>> anyResultType() {
+        return any();
+    }
+
+    private static ResponseEntity<List<BatchItemResult>> persistAll(InvocationOnMock invocation) {
+        HttpEntity<List<DataEnvelope>> request = invocation.getArgument(2);
+        List<BatchItemResult> results = new ArrayList<>();
+        for (int i = 0; i < request.getBody().size(); i++) {
+            results.add(new BatchItemResult(i, request.getBody().get(i).getDataHeader().getName(), BatchItemStatus.PERSISTED));
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    private static DataEnvelope envelope(String name) {
+        return new DataEnvelope(new DataHeader(name, BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), null);
+    }
+}
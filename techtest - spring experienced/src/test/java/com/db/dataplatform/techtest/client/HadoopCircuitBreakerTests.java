@@ -0,0 +1,161 @@
+package com.db.dataplatform.techtest.client;
+
+import com.db.dataplatform.techtest.client.component.HadoopCircuitBreaker.State;
+import com.db.dataplatform.techtest.client.component.impl.HadoopCircuitBreakerImpl;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HadoopCircuitBreakerTests {
+
+    private static final long LONG_OPEN_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private ExecutorService callers;
+
+    @Before
+    public void setup() {
+        callers = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void shouldOpenOnceTheFailureRateIsReached() throws HadoopClientException {
+        HadoopCircuitBreakerImpl breaker = new HadoopCircuitBreakerImpl(4, 4, 50, LONG_OPEN_MS, 1, 8);
+
+        succeed(breaker);
+        succeed(breaker);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThatThrownBy(() -> breaker.execute(() -> {
+            throw new AssertionError("Called while open");
+        })).isInstanceOf(HadoopClientException.class);
+        assertThat(breaker.getNotPermittedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCountOtherExceptionsAsFailures() {
+        HadoopCircuitBreakerImpl breaker = new HadoopCircuitBreakerImpl(2, 2, 50, LONG_OPEN_MS, 1, 8);
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> breaker.execute(() -> {
+                throw new IllegalArgumentException("Bad request");
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    public void shouldCloseAfterSuccessfulHalfOpenTrials() throws HadoopClientException {
+        HadoopCircuitBreakerImpl breaker = new HadoopCircuitBreakerImpl(2, 2, 50, 0, 2, 8);
+        fail(breaker);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        succeed(breaker);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        succeed(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.getTransitionCount(State.HALF_OPEN)).isEqualTo(1);
+        assertThat(breaker.getTransitionCount(State.CLOSED)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReopenWhenAHalfOpenTrialFails() throws HadoopClientException {
+        HadoopCircuitBreakerImpl breaker = new HadoopCircuitBreakerImpl(2, 2, 50, 0, 2, 8);
+        fail(breaker);
+        fail(breaker);
+
+        succeed(breaker);
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.getTransitionCount(State.OPEN)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIgnoreACallAdmittedBeforeTheBreakerOpened() throws Exception {
+        HadoopCircuitBreakerImpl breaker = new HadoopCircuitBreakerImpl(2, 2, 50, 0, 2, 8);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<?> slow = callers.submit(() -> breaker.execute(() -> {
+            started.countDown();
+            await(finish);
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        fail(breaker);
+        fail(breaker);
+        succeed(breaker);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        finish.countDown();
+        assertThatThrownBy(() -> slow.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpServerErrorException.class);
+
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        succeed(breaker);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    public void shouldRefuseCallsWhileTheBulkheadIsFull() throws Exception {
+        HadoopCircuitBreakerImpl breaker = new HadoopCircuitBreakerImpl(2, 2, 50, LONG_OPEN_MS, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<?> slow = callers.submit(() -> breaker.execute(() -> {
+            started.countDown();
+            await(finish);
+            return "done";
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(breaker.getAvailableConcurrentCalls()).isZero();
+        assertThatThrownBy(() -> succeed(breaker)).isInstanceOf(HadoopClientException.class);
+        assertThat(breaker.getNotPermittedCount()).isEqualTo(1);
+
+        finish.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        assertThat(breaker.getAvailableConcurrentCalls()).isEqualTo(1);
+        succeed(breaker);
+    }
+
+    private static void succeed(HadoopCircuitBreakerImpl breaker) throws HadoopClientException {
+        assertThat(breaker.execute(() -> "done")).isEqualTo("done");
+    }
+
+    private static void fail(HadoopCircuitBreakerImpl breaker) {
+        Supplier<String> failing = () -> {
+            throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+        };
+        assertThatThrownBy(() -> breaker.execute(failing)).isInstanceOf(HttpServerErrorException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
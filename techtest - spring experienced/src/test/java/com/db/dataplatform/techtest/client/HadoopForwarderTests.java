@@ -0,0 +1,97 @@
+package com.db.dataplatform.techtest.client;
+
+import com.db.dataplatform.techtest.client.api.model.DataBody;
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.api.model.DataHeader;
+import com.db.dataplatform.techtest.client.component.HadoopClient;
+import com.db.dataplatform.techtest.client.component.impl.HadoopForwarderImpl;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HadoopForwarderTests {
+
+    @Mock
+    private HadoopClient hadoopClientMock;
+
+    private HadoopForwarderImpl hadoopForwarder;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (hadoopForwarder != null) {
+            hadoopForwarder.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRejectEnvelopesWhileTheQueueIsFull() throws Exception {
+        CountDownLatch pushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(hadoopClientMock.pushBigData(any())).thenAnswer(invocation -> {
+            pushing.countDown();
+            release.await();
+            return true;
+        });
+        hadoopForwarder = new HadoopForwarderImpl(hadoopClientMock, 1, 1);
+
+        CompletableFuture<Boolean> running = hadoopForwarder.submit(envelope("A"));
+        assertThat(pushing.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = hadoopForwarder.submit(envelope("B"));
+        CompletableFuture<Boolean> refused = hadoopForwarder.submit(envelope("C"));
+
+        assertThatThrownBy(() -> refused.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(hadoopForwarder.forward(envelope("D"))).isFalse();
+        assertThat(hadoopForwarder.getRejectedCount()).isEqualTo(2);
+        assertThat(hadoopForwarder.getQueueDepth()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(hadoopForwarder.getForwardedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCountPushesThatFailedOrThrew() throws Exception {
+        IllegalStateException pushException = new IllegalStateException("Connection reset");
+        when(hadoopClientMock.pushBigData(any())).thenReturn(false).thenThrow(pushException);
+        hadoopForwarder = new HadoopForwarderImpl(hadoopClientMock, 1, 10);
+
+        assertThat(hadoopForwarder.submit(envelope("A")).get(10, TimeUnit.SECONDS)).isFalse();
+        assertThatThrownBy(() -> hadoopForwarder.submit(envelope("B")).get(10, TimeUnit.SECONDS)).hasCause(pushException);
+
+        assertThat(hadoopForwarder.getFailedCount()).isEqualTo(2);
+        assertThat(hadoopForwarder.getForwardedCount()).isZero();
+    }
+
+    @Test
+    public void shouldCountAPushTheBreakerRefusedAsShortCircuited() throws Exception {
+        when(hadoopClientMock.pushBigData(any())).thenThrow(new HadoopClientException("Hadoop circuit breaker is open"));
+        hadoopForwarder = new HadoopForwarderImpl(hadoopClientMock, 1, 10);
+
+        assertThatThrownBy(() -> hadoopForwarder.submit(envelope("A")).get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(HadoopClientException.class);
+
+        assertThat(hadoopForwarder.getShortCircuitedCount()).isEqualTo(1);
+        assertThat(hadoopForwarder.getFailedCount()).isZero();
+    }
+
+    private static DataEnvelope envelope(String name) {
+        return new DataEnvelope(new DataHeader(name, BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), null);
+    }
+}
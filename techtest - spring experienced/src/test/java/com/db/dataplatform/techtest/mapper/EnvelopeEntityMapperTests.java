@@ -0,0 +1,45 @@
+package com.db.dataplatform.techtest.mapper;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.EnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.mapper.ServerMapperConfiguration;
+import com.db.dataplatform.techtest.server.mapper.impl.DirectEnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.mapper.impl.ModelMapperEnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.security.NoSuchAlgorithmException;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EnvelopeEntityMapperTests {
+
+    private final EnvelopeEntityMapper directMapper = new DirectEnvelopeEntityMapper();
+
+    @Test
+    public void shouldMapEnvelopeToEntity() throws NoSuchAlgorithmException {
+        DataBodyEntity dataBodyEntity = directMapper.toEntity(createTestDataEnvelopeApiObject());
+
+        assertThat(dataBodyEntity.getDataStoreId()).isNull();
+        assertThat(dataBodyEntity.getDataBody()).isEqualTo(DUMMY_DATA);
+        assertThat(dataBodyEntity.getDataHeaderEntity().getDataHeaderId()).isNull();
+        assertThat(dataBodyEntity.getDataHeaderEntity().getName()).isEqualTo(TEST_NAME);
+        assertThat(dataBodyEntity.getDataHeaderEntity().getBlocktype()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @Test
+    public void shouldMapLikeTheModelMapperFallback() throws NoSuchAlgorithmException {
+        EnvelopeEntityMapper modelMapperFallback = new ModelMapperEnvelopeEntityMapper(
+                new ServerMapperConfiguration().createModelMapperBean());
+        DataEnvelope envelope = createTestDataEnvelopeApiObject();
+
+        assertThat(directMapper.toEntity(envelope)).isEqualTo(modelMapperFallback.toEntity(envelope));
+    }
+}
@@ -0,0 +1,71 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.StreamingChecksum;
+import com.db.dataplatform.techtest.server.component.impl.ChecksumCalculatorImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.xml.bind.DatatypeConverter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChecksumCalculatorTests {
+
+    private final ChecksumCalculator checksumCalculator = new ChecksumCalculatorImpl();
+
+    @Test
+    public void shouldComputeLowerCaseMd5OfTheBody() {
+        assertThat(checksumCalculator.checksum(ChecksumAlgorithm.MD5, DUMMY_DATA)).isEqualTo(MD5_CHECKSUM);
+        assertThat(checksumCalculator.checksum(ChecksumAlgorithm.MD5, DUMMY_DATA)).isEqualTo(MD5_CHECKSUM);
+    }
+
+    @Test
+    public void shouldMatchChecksumInEitherCase() {
+        assertThat(checksumCalculator.matches(ChecksumAlgorithm.MD5, DUMMY_DATA, MD5_CHECKSUM)).isTrue();
+        assertThat(checksumCalculator.matches(ChecksumAlgorithm.MD5, DUMMY_DATA, MD5_CHECKSUM.toUpperCase())).isTrue();
+        assertThat(checksumCalculator.matches(ChecksumAlgorithm.MD5, DUMMY_DATA, "0xBEEFBEEF")).isFalse();
+        assertThat(checksumCalculator.matches(ChecksumAlgorithm.MD5, DUMMY_DATA, null)).isFalse();
+    }
+
+    @Test
+    public void shouldHashTheUtf8BytesOfNonAsciiBodies() throws NoSuchAlgorithmException {
+        String body = "café € 😀 \uD800";
+        byte[] digest = MessageDigest.getInstance("MD5").digest(body.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(checksumCalculator.checksum(ChecksumAlgorithm.MD5, body))
+                .isEqualTo(DatatypeConverter.printHexBinary(digest).toLowerCase());
+    }
+
+    @Test
+    public void shouldComputeNonCryptographicChecksums() {
+        CRC32 crc32 = new CRC32();
+        crc32.update(DUMMY_DATA.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(checksumCalculator.checksum(ChecksumAlgorithm.CRC32, DUMMY_DATA)).isEqualTo(String.format("%08x", crc32.getValue()));
+        assertThat(checksumCalculator.checksum(ChecksumAlgorithm.XXHASH64, DUMMY_DATA)).hasSize(16);
+        assertThat(checksumCalculator.matches(ChecksumAlgorithm.XXHASH64, DUMMY_DATA,
+                checksumCalculator.checksum(ChecksumAlgorithm.XXHASH64, DUMMY_DATA))).isTrue();
+    }
+
+    @Test
+    public void shouldStreamTheSameChecksumAsTheWholeBody() {
+        byte[] bytes = DUMMY_DATA.getBytes(StandardCharsets.UTF_8);
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            StreamingChecksum streaming = checksumCalculator.streaming(algorithm);
+            streaming.update(bytes, 0, 7);
+            streaming.update(bytes, 7, bytes.length - 7);
+
+            assertThat(streaming.hex()).as(algorithm.name()).isEqualTo(checksumCalculator.checksum(algorithm, DUMMY_DATA));
+        }
+    }
+}
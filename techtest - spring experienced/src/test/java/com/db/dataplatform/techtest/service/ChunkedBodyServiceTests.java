@@ -0,0 +1,209 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.component.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.impl.ChecksumCalculatorImpl;
+import com.db.dataplatform.techtest.server.exception.DataNameTakenException;
+import com.db.dataplatform.techtest.server.exception.DecodedSizeLimitExceededException;
+import com.db.dataplatform.techtest.server.persistence.model.ChunkedBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.ChunkedBodyRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
+import com.db.dataplatform.techtest.server.service.impl.ChunkedBodyServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChunkedBodyServiceTests {
+
+    private static final int CHUNK_BYTES = 16;
+    private static final long DATA_HEADER_ID = 7L;
+
+    @Mock
+    private DataHeaderRepository dataHeaderRepositoryMock;
+
+    @Mock
+    private ChunkedBodyRepository chunkedBodyRepositoryMock;
+
+    @Mock
+    private JdbcTemplate jdbcTemplateMock;
+
+    @Mock
+    private TransactionTemplate transactionTemplateMock;
+
+    @Mock
+    private TransactionStatus transactionStatusMock;
+
+    private final ChecksumCalculator checksumCalculator = new ChecksumCalculatorImpl();
+    private final List<byte[]> storedChunks = new ArrayList<>();
+
+    private ChunkedBodyServiceImpl chunkedBodyService;
+    private DataHeaderEntity dataHeader;
+
+    @Before
+    public void setup() {
+        dataHeader = createTestDataHeaderEntity(Instant.now());
+        dataHeader.setDataHeaderId(DATA_HEADER_ID);
+        chunkedBodyService = new ChunkedBodyServiceImpl(dataHeaderRepositoryMock, chunkedBodyRepositoryMock,
+                jdbcTemplateMock, transactionTemplateMock, checksumCalculator, CHUNK_BYTES, 100);
+    }
+
+    @Test
+    public void shouldStoreTheBodyInFixedSizeChunks() throws Exception {
+        givenAnUpload();
+
+        boolean stored = chunkedBodyService.saveChunkedBody(dataHeader, ChecksumAlgorithm.MD5,
+                checksumCalculator.checksum(ChecksumAlgorithm.MD5, DUMMY_DATA), body(DUMMY_DATA));
+
+        assertThat(stored).isTrue();
+        assertThat(storedChunks).hasSize((DUMMY_DATA.length() + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        assertThat(storedChunks.get(0)).hasSize(CHUNK_BYTES);
+        assertThat(concat(storedChunks)).isEqualTo(DUMMY_DATA);
+        ArgumentCaptor<ChunkedBodyEntity> saved = ArgumentCaptor.forClass(ChunkedBodyEntity.class);
+        verify(chunkedBodyRepositoryMock).save(saved.capture());
+        assertThat(saved.getValue().getBodyBytes()).isEqualTo(DUMMY_DATA.length());
+        assertThat(saved.getValue().getChunkCount()).isEqualTo(storedChunks.size());
+        verify(transactionStatusMock, never()).setRollbackOnly();
+    }
+
+    @Test
+    public void shouldRollBackWhenTheChecksumDoesNotMatch() throws Exception {
+        givenAnUpload();
+
+        boolean stored = chunkedBodyService.saveChunkedBody(dataHeader, ChecksumAlgorithm.MD5, "0xBEEFBEEF", body(DUMMY_DATA));
+
+        assertThat(stored).isFalse();
+        verify(transactionStatusMock).setRollbackOnly();
+        verify(chunkedBodyRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void shouldRefuseABodyLongerThanTheLimit() {
+        givenAnUpload();
+        String body = new String(new char[101]).replace('\0', 'x');
+
+        assertThatThrownBy(() -> chunkedBodyService.saveChunkedBody(dataHeader, ChecksumAlgorithm.MD5,
+                checksumCalculator.checksum(ChecksumAlgorithm.MD5, body), body(body)))
+                .isInstanceOf(DecodedSizeLimitExceededException.class);
+        verify(chunkedBodyRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void shouldRefuseANameThatIsAlreadyTaken() {
+        givenATransaction();
+        when(dataHeaderRepositoryMock.saveAndFlush(dataHeader)).thenThrow(new DataIntegrityViolationException("UK_DATA_HEADER"));
+
+        assertThatThrownBy(() -> chunkedBodyService.saveChunkedBody(dataHeader, ChecksumAlgorithm.MD5,
+                checksumCalculator.checksum(ChecksumAlgorithm.MD5, DUMMY_DATA), body(DUMMY_DATA)))
+                .isInstanceOf(DataNameTakenException.class);
+        verify(jdbcTemplateMock, never()).update(anyString(), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    public void shouldDeleteTheChunksAndTheHeaderOfAChunkedBody() {
+        givenATransaction();
+        ChunkedBodyEntity chunkedBody = new ChunkedBodyEntity();
+        chunkedBody.setDataHeaderId(DATA_HEADER_ID);
+        chunkedBody.setDataHeaderEntity(dataHeader);
+        when(chunkedBodyRepositoryMock.findByName(dataHeader.getName())).thenReturn(Optional.of(chunkedBody));
+
+        assertThat(chunkedBodyService.deleteChunkedBody(dataHeader.getName())).isTrue();
+
+        verify(jdbcTemplateMock).update(ChunkedBodyServiceImpl.DELETE_CHUNKS, DATA_HEADER_ID);
+        verify(chunkedBodyRepositoryMock).delete(chunkedBody);
+        verify(dataHeaderRepositoryMock).delete(dataHeader);
+    }
+
+    @Test
+    public void shouldNotDeleteANameWithoutAChunkedBody() {
+        givenATransaction();
+        when(chunkedBodyRepositoryMock.findByName("MISSING")).thenReturn(Optional.empty());
+
+        assertThat(chunkedBodyService.deleteChunkedBody("MISSING")).isFalse();
+
+        verify(dataHeaderRepositoryMock, never()).delete(any());
+    }
+
+    @Test
+    public void shouldCopyChunksToTheOutputInOrder() throws Exception {
+        ResultSet resultSetMock = mock(ResultSet.class);
+        when(resultSetMock.getBinaryStream(1)).thenReturn(body("first "), body("second"));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSetMock);
+            handler.processRow(resultSetMock);
+            return null;
+        }).when(jdbcTemplateMock).query(anyString(), any(RowCallbackHandler.class), eq(DATA_HEADER_ID));
+        ChunkedBodyEntity chunkedBody = new ChunkedBodyEntity();
+        chunkedBody.setDataHeaderId(DATA_HEADER_ID);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        chunkedBodyService.streamChunkedBody(chunkedBody, output);
+
+        assertThat(output.toString(StandardCharsets.UTF_8.name())).isEqualTo("first second");
+    }
+
+    private void givenAnUpload() {
+        givenATransaction();
+        when(dataHeaderRepositoryMock.saveAndFlush(dataHeader)).thenReturn(dataHeader);
+        when(jdbcTemplateMock.update(anyString(), any(PreparedStatementSetter.class))).thenAnswer(invocation -> {
+            PreparedStatement statementMock = mock(PreparedStatement.class);
+            doAnswer(set -> storedChunks.add(StreamUtils.copyToByteArray(set.<InputStream>getArgument(1))))
+                    .when(statementMock).setBinaryStream(eq(3), any(InputStream.class), anyInt());
+            invocation.<PreparedStatementSetter>getArgument(1).setValues(statementMock);
+            return 1;
+        });
+    }
+
+    private void givenATransaction() {
+        when(transactionTemplateMock.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(transactionStatusMock));
+    }
+
+    private static InputStream body(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String concat(List<byte[]> chunks) {
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        chunks.forEach(chunk -> all.write(chunk, 0, chunk.length));
+        return new String(all.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -1,32 +1,69 @@
 package com.db.dataplatform.techtest.service;
 
+import com.db.dataplatform.techtest.TestDataHelper;
+import com.db.dataplatform.techtest.server.cache.BlockTypeResultCache;
+import com.db.dataplatform.techtest.server.cache.DataStoreIdCache;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataContentService;
 import com.db.dataplatform.techtest.server.service.impl.DataBodyServiceImpl;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.runTransactions;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DataBodyServiceTests {
 
     public static final String TEST_NAME_NO_RESULT = "TestNoResult";
+    public static final long TEST_DATA_STORE_ID = 1L;
+    public static final String OTHER_CHECKSUM = "0123456789abcdef0123456789abcdef";
 
     @Mock
     private DataStoreRepository dataStoreRepositoryMock;
 
+    @Mock
+    private DataContentService dataContentServiceMock;
+
+    @Mock
+    private EntityManager entityManagerMock;
+
+    @Mock
+    private TransactionTemplate transactionTemplateMock;
+
     private DataBodyService dataBodyService;
     private DataBodyEntity expectedDataBodyEntity;
 
@@ -34,16 +71,214 @@ public class DataBodyServiceTests {
     public void setup() {
         DataHeaderEntity testDataHeaderEntity = createTestDataHeaderEntity(Instant.now());
         expectedDataBodyEntity = createTestDataBodyEntity(testDataHeaderEntity);
+        expectedDataBodyEntity.setDataStoreId(TEST_DATA_STORE_ID);
 
-        dataBodyService = new DataBodyServiceImpl(dataStoreRepositoryMock);
+        dataBodyService = new DataBodyServiceImpl(dataStoreRepositoryMock, dataContentServiceMock, new DataStoreIdCache(100),
+                new BlockTypeResultCache(true, 1024 * 1024, 60), entityManagerMock, transactionTemplateMock);
     }
 
     @Test
     public void shouldSaveDataBodyEntityAsExpected(){
+        runTransactions(transactionTemplateMock);
+
         dataBodyService.saveDataBody(expectedDataBodyEntity);
 
+        verify(dataContentServiceMock).acquire(Collections.singletonList(expectedDataBodyEntity));
         verify(dataStoreRepositoryMock, times(1))
-                .save(eq(expectedDataBodyEntity));
+                .saveAll(eq(Collections.singletonList(expectedDataBodyEntity)));
+    }
+
+    @Test
+    public void shouldSaveDataBodiesInOneTransaction() {
+        List<DataBodyEntity> batch = Collections.singletonList(expectedDataBodyEntity);
+        runTransactions(transactionTemplateMock);
+
+        List<Boolean> results = dataBodyService.saveDataBodies(batch);
+
+        assertThat(results).containsExactly(true);
+        verify(dataContentServiceMock, times(1)).acquire(batch);
+        verify(dataStoreRepositoryMock, times(1)).saveAll(batch);
+        verify(dataStoreRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void shouldFallBackToRowBySavesWhenTheBatchFails() {
+        DataBodyEntity duplicate = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        duplicate.setDataStoreId(2L);
+        List<DataBodyEntity> batch = Arrays.asList(expectedDataBodyEntity, duplicate);
+        when(transactionTemplateMock.execute(any()))
+                .thenThrow(new DataIntegrityViolationException("UK_DATA_HEADER"))
+                .thenAnswer(TestDataHelper::inTransaction);
+        when(dataStoreRepositoryMock.saveAll(anyList())).thenAnswer(invocation -> {
+            List<DataBodyEntity> saved = invocation.getArgument(0);
+            if (saved.get(0) == duplicate) {
+                throw new DataIntegrityViolationException("UK_DATA_HEADER");
+            }
+            saved.get(0).setDataStoreId(TEST_DATA_STORE_ID);
+            return saved;
+        });
+
+        List<Boolean> results = dataBodyService.saveDataBodies(batch);
+
+        assertThat(results).containsExactly(true, false);
+        assertThat(duplicate.getDataStoreId()).isNull();
+    }
+
+    @Test
+    public void shouldQueryDataByBlockTypeInTheDatabase() {
+        when(dataStoreRepositoryMock.findByBlockType(BlockTypeEnum.BLOCKTYPEA))
+                .thenReturn(Collections.singletonList(expectedDataBodyEntity));
+
+        List<DataBodyEntity> data = dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA);
+
+        assertThat(data).containsExactly(expectedDataBodyEntity);
+        verify(dataStoreRepositoryMock, never()).findAll();
+    }
+
+    @Test
+    public void shouldServeRepeatedBlockTypeQueriesFromTheCache() {
+        when(dataStoreRepositoryMock.findByBlockType(BlockTypeEnum.BLOCKTYPEA))
+                .thenReturn(Collections.singletonList(expectedDataBodyEntity));
+
+        dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA);
+        List<DataBodyEntity> data = dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA);
+
+        assertThat(data).containsExactly(expectedDataBodyEntity);
+        verify(dataStoreRepositoryMock, times(1)).findByBlockType(BlockTypeEnum.BLOCKTYPEA);
+    }
+
+    @Test
+    public void shouldEvictCachedBlockTypeOnSave() {
+        when(dataStoreRepositoryMock.findByBlockType(BlockTypeEnum.BLOCKTYPEA))
+                .thenReturn(Collections.emptyList(), Collections.singletonList(expectedDataBodyEntity));
+        when(dataStoreRepositoryMock.findByBlockType(BlockTypeEnum.BLOCKTYPEB)).thenReturn(Collections.emptyList());
+        runTransactions(transactionTemplateMock);
+        dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA);
+        dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEB);
+
+        dataBodyService.saveDataBody(expectedDataBodyEntity);
+
+        assertThat(dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA)).containsExactly(expectedDataBodyEntity);
+        assertThat(dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEB)).isEmpty();
+        verify(dataStoreRepositoryMock, times(2)).findByBlockType(BlockTypeEnum.BLOCKTYPEA);
+        verify(dataStoreRepositoryMock, times(1)).findByBlockType(BlockTypeEnum.BLOCKTYPEB);
+    }
+
+    @Test
+    public void shouldQueryPageAfterCursor() {
+        when(dataStoreRepositoryMock.findByBlockTypeAfter(BlockTypeEnum.BLOCKTYPEA, 5L, PageRequest.of(0, 10)))
+                .thenReturn(Collections.singletonList(expectedDataBodyEntity));
+
+        List<DataBodyEntity> page = dataBodyService.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 5L, 10);
+
+        assertThat(page).containsExactly(expectedDataBodyEntity);
+    }
+
+    @Test
+    public void shouldStreamDataByBlockTypeAndDetachEachRow() {
+        when(dataStoreRepositoryMock.streamByBlockType(BlockTypeEnum.BLOCKTYPEA))
+                .thenReturn(Stream.of(expectedDataBodyEntity));
+        List<DataBodyEntity> received = new ArrayList<>();
+
+        dataBodyService.streamDataByBlockType(BlockTypeEnum.BLOCKTYPEA, received::add);
+
+        assertThat(received).containsExactly(expectedDataBodyEntity);
+        verify(entityManagerMock, times(1)).detach(expectedDataBodyEntity);
+    }
+
+    @Test
+    public void shouldLookUpByNameThroughTheIndexThenThroughTheCache() {
+        when(dataStoreRepositoryMock.findByName(TEST_NAME)).thenReturn(Optional.of(expectedDataBodyEntity));
+        when(dataStoreRepositoryMock.findById(TEST_DATA_STORE_ID)).thenReturn(Optional.of(expectedDataBodyEntity));
+
+        assertThat(dataBodyService.getDataByBlockName(TEST_NAME)).contains(expectedDataBodyEntity);
+        assertThat(dataBodyService.getDataByBlockName(TEST_NAME)).contains(expectedDataBodyEntity);
+
+        verify(dataStoreRepositoryMock, times(1)).findByName(TEST_NAME);
+        verify(dataStoreRepositoryMock, times(1)).findById(TEST_DATA_STORE_ID);
+        verify(dataStoreRepositoryMock, never()).findAll();
+    }
+
+    @Test
+    public void shouldServeSavedNameFromTheCache() {
+        runTransactions(transactionTemplateMock);
+        when(dataStoreRepositoryMock.findById(TEST_DATA_STORE_ID)).thenReturn(Optional.of(expectedDataBodyEntity));
+
+        dataBodyService.saveDataBody(expectedDataBodyEntity);
+
+        assertThat(dataBodyService.getDataByBlockName(TEST_NAME)).contains(expectedDataBodyEntity);
+        verify(dataStoreRepositoryMock, never()).findByName(TEST_NAME);
+    }
+
+    @Test
+    public void shouldReturnEmptyForUnknownName() {
+        when(dataStoreRepositoryMock.findByName(TEST_NAME_NO_RESULT)).thenReturn(Optional.empty());
+
+        assertThat(dataBodyService.getDataByBlockName(TEST_NAME_NO_RESULT)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotWriteARowThatIsStoredUnchanged() {
+        runTransactions(transactionTemplateMock);
+        DataBodyEntity stored = storedRow(MD5_CHECKSUM);
+        when(dataStoreRepositoryMock.findByNames(Collections.singleton(TEST_NAME))).thenReturn(Collections.singletonList(stored));
+        when(dataContentServiceMock.checksum(expectedDataBodyEntity.getDataBody())).thenReturn(MD5_CHECKSUM);
+
+        assertThat(dataBodyService.saveDataBodies(Collections.singletonList(expectedDataBodyEntity))).containsExactly(true);
+
+        verify(dataContentServiceMock, never()).acquire(anyList());
+        verify(dataContentServiceMock, never()).release(any());
+        verify(dataStoreRepositoryMock, never()).saveAll(any());
+    }
+
+    @Test
+    public void shouldUpdateTheStoredRowWhenTheBodyChanged() {
+        runTransactions(transactionTemplateMock);
+        DataBodyEntity stored = storedRow(OTHER_CHECKSUM);
+        when(dataStoreRepositoryMock.findByNames(Collections.singleton(TEST_NAME))).thenReturn(Collections.singletonList(stored));
+        when(dataContentServiceMock.checksum(expectedDataBodyEntity.getDataBody())).thenReturn(MD5_CHECKSUM);
+
+        dataBodyService.saveDataBody(expectedDataBodyEntity);
+
+        assertThat(stored.getContentChecksum()).isEqualTo(MD5_CHECKSUM);
+        assertThat(stored.getDataBody()).isEqualTo(expectedDataBodyEntity.getDataBody());
+        InOrder inOrder = inOrder(dataContentServiceMock, dataStoreRepositoryMock);
+        inOrder.verify(dataContentServiceMock).acquire(Collections.singletonList(expectedDataBodyEntity));
+        inOrder.verify(dataStoreRepositoryMock).saveAll(Collections.emptyList());
+        inOrder.verify(dataStoreRepositoryMock).flush();
+        inOrder.verify(dataContentServiceMock).release(OTHER_CHECKSUM);
+    }
+
+    @Test
+    public void shouldReleaseTheContentOfADeletedRow() {
+        runTransactions(transactionTemplateMock);
+        expectedDataBodyEntity.setContentChecksum(MD5_CHECKSUM);
+        when(dataStoreRepositoryMock.findByName(TEST_NAME)).thenReturn(Optional.of(expectedDataBodyEntity));
+
+        assertThat(dataBodyService.deleteDataBody(TEST_NAME)).isTrue();
+
+        InOrder inOrder = inOrder(dataStoreRepositoryMock, dataContentServiceMock);
+        inOrder.verify(dataStoreRepositoryMock).delete(expectedDataBodyEntity);
+        inOrder.verify(dataStoreRepositoryMock).flush();
+        inOrder.verify(dataContentServiceMock).release(MD5_CHECKSUM);
+    }
+
+    @Test
+    public void shouldNotDeleteAnUnknownName() {
+        runTransactions(transactionTemplateMock);
+        when(dataStoreRepositoryMock.findByName(TEST_NAME_NO_RESULT)).thenReturn(Optional.empty());
+
+        assertThat(dataBodyService.deleteDataBody(TEST_NAME_NO_RESULT)).isFalse();
+
+        verify(dataContentServiceMock, never()).release(any());
+    }
+
+    private static DataBodyEntity storedRow(String contentChecksum) {
+        DataBodyEntity stored = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        stored.setDataStoreId(TEST_DATA_STORE_ID);
+        stored.setContentChecksum(contentChecksum);
+        stored.setDataBody(null);
+        return stored;
     }
 
 }
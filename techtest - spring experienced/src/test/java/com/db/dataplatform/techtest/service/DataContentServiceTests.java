@@ -0,0 +1,111 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.component.impl.ChecksumCalculatorImpl;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataContentRepository;
+import com.db.dataplatform.techtest.server.service.impl.DataContentServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataContentServiceTests {
+
+    private static final String OTHER_BODY = "other body";
+
+    @Mock
+    private DataContentRepository dataContentRepositoryMock;
+
+    @Mock
+    private JdbcTemplate jdbcTemplateMock;
+
+    private DataContentServiceImpl dataContentService;
+
+    @Before
+    public void setup() {
+        dataContentService = new DataContentServiceImpl(dataContentRepositoryMock, jdbcTemplateMock,
+                new ChecksumCalculatorImpl(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void shouldReferenceStoredBodiesAndInsertNewOnesOnce() {
+        when(dataContentRepositoryMock.findExistingChecksums(anyCollection())).thenReturn(Collections.singletonList(MD5_CHECKSUM));
+        when(jdbcTemplateMock.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        DataBodyEntity stored = row(DUMMY_DATA);
+        DataBodyEntity storedAgain = row(DUMMY_DATA);
+        DataBodyEntity fresh = row(OTHER_BODY);
+        DataBodyEntity freshAgain = row(OTHER_BODY);
+
+        dataContentService.acquire(Arrays.asList(stored, fresh, storedAgain, freshAgain));
+
+        assertThat(stored.getContentChecksum()).isEqualTo(MD5_CHECKSUM).isEqualTo(storedAgain.getContentChecksum());
+        assertThat(fresh.getContentChecksum()).isNotEqualTo(MD5_CHECKSUM).isEqualTo(freshAgain.getContentChecksum());
+        ArgumentCaptor<List<Object[]>> increments = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplateMock).batchUpdate(eq(incrementSql()), increments.capture());
+        assertThat(increments.getValue()).containsExactly(new Object[]{2, MD5_CHECKSUM, DUMMY_DATA});
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplateMock).batchUpdate(eq(insertSql()), inserts.capture());
+        assertThat(inserts.getValue()).hasSize(1);
+        assertThat(inserts.getValue().get(0)).startsWith(fresh.getContentChecksum(), OTHER_BODY, 2);
+    }
+
+    @Test
+    public void shouldRefuseWhenTheStoredBodyDoesNotMatch() {
+        when(dataContentRepositoryMock.findExistingChecksums(anyCollection())).thenReturn(Collections.singletonList(MD5_CHECKSUM));
+        when(jdbcTemplateMock.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+
+        assertThatThrownBy(() -> dataContentService.acquire(Collections.singletonList(row(DUMMY_DATA))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(jdbcTemplateMock, never()).batchUpdate(eq(insertSql()), anyList());
+    }
+
+    @Test
+    public void shouldDeleteTheBodyAfterDroppingTheReference() {
+        dataContentService.release(MD5_CHECKSUM);
+
+        InOrder inOrder = inOrder(jdbcTemplateMock);
+        inOrder.verify(jdbcTemplateMock).update("update DATA_CONTENT set REF_COUNT = REF_COUNT - 1 where CHECKSUM = ?", MD5_CHECKSUM);
+        inOrder.verify(jdbcTemplateMock).update("delete from DATA_CONTENT where CHECKSUM = ? and REF_COUNT <= 0", MD5_CHECKSUM);
+    }
+
+    private static String incrementSql() {
+        return "update DATA_CONTENT set REF_COUNT = REF_COUNT + ? where CHECKSUM = ? and DATA_BODY = ?";
+    }
+
+    private static String insertSql() {
+        return "insert into DATA_CONTENT (CHECKSUM, DATA_BODY, REF_COUNT, CREATED_TIMESTAMP) values (?, ?, ?, ?)";
+    }
+
+    private static DataBodyEntity row(String body) {
+        DataBodyEntity dataBody = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        dataBody.setDataBody(body);
+        return dataBody;
+    }
+}
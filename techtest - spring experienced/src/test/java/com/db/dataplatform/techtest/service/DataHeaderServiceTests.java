@@ -1,5 +1,7 @@
 package com.db.dataplatform.techtest.service;
 
+import com.db.dataplatform.techtest.server.cache.BlockTypeResultCache;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
 import com.db.dataplatform.techtest.server.service.DataHeaderService;
@@ -9,13 +11,25 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.Collections;
+import java.util.Optional;
 
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.runTransactions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DataHeaderServiceTests {
@@ -23,14 +37,19 @@ public class DataHeaderServiceTests {
     @Mock
     private DataHeaderRepository dataHeaderRepositoryMock;
 
+    @Mock
+    private TransactionTemplate transactionTemplateMock;
+
     private DataHeaderService dataHeaderService;
     private DataHeaderEntity expectedDataHeaderEntity;
+    private BlockTypeResultCache blockTypeResultCache;
 
     @Before
     public void setup() {
         expectedDataHeaderEntity = createTestDataHeaderEntity(Instant.now());
+        blockTypeResultCache = new BlockTypeResultCache(true, 1024 * 1024, 60);
 
-        dataHeaderService = new DataHeaderServiceImpl(dataHeaderRepositoryMock);
+        dataHeaderService = new DataHeaderServiceImpl(dataHeaderRepositoryMock, blockTypeResultCache, transactionTemplateMock);
     }
 
     @Test
@@ -41,4 +60,46 @@ public class DataHeaderServiceTests {
                 .save(eq(expectedDataHeaderEntity));
     }
 
+    @Test
+    public void shouldUpdateTheBlockTypeWithoutReadingTheHeader() {
+        runTransactions(transactionTemplateMock);
+        when(dataHeaderRepositoryMock.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, 3L)).thenReturn(1);
+        blockTypeResultCache.get(BlockTypeEnum.BLOCKTYPEA, blockType -> Collections.emptyList());
+
+        assertThat(dataHeaderService.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, 3L)).contains(4L);
+
+        verify(dataHeaderRepositoryMock, never()).findVersionByName(any());
+        verify(dataHeaderRepositoryMock, never()).findById(any());
+        assertThat(blockTypeResultCache.size()).isZero();
+    }
+
+    @Test
+    public void shouldReadBackTheVersionOfAnUnconditionalUpdate() {
+        runTransactions(transactionTemplateMock);
+        when(dataHeaderRepositoryMock.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB)).thenReturn(1);
+        when(dataHeaderRepositoryMock.findVersionByName(TEST_NAME)).thenReturn(Optional.of(7L));
+
+        assertThat(dataHeaderService.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, null)).contains(7L);
+    }
+
+    @Test
+    public void shouldRefuseAnUpdateFromAStaleVersion() {
+        runTransactions(transactionTemplateMock);
+        when(dataHeaderRepositoryMock.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, 3L)).thenReturn(0);
+        when(dataHeaderRepositoryMock.findVersionByName(TEST_NAME)).thenReturn(Optional.of(4L));
+
+        assertThatThrownBy(() -> dataHeaderService.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, 3L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    public void shouldNotUpdateAnUnknownName() {
+        runTransactions(transactionTemplateMock);
+        when(dataHeaderRepositoryMock.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB)).thenReturn(0);
+
+        assertThat(dataHeaderService.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, null)).isEmpty();
+
+        verify(dataHeaderRepositoryMock, never()).updateBlockType(any(), any(), anyLong());
+    }
+
 }
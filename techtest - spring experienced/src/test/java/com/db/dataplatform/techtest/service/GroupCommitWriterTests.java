@@ -0,0 +1,146 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.impl.GroupCommitWriterImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GroupCommitWriterTests {
+
+    private static final long MAX_WAIT_MICROS = TimeUnit.SECONDS.toMicros(5);
+
+    @Mock
+    private DataBodyService dataBodyServiceMock;
+
+    private ExecutorService writers;
+    private GroupCommitWriterImpl groupCommitWriter;
+
+    @Before
+    public void setup() {
+        writers = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (groupCommitWriter != null) {
+            groupCommitWriter.close();
+        }
+        writers.shutdownNow();
+    }
+
+    @Test
+    public void shouldCommitConcurrentWritesInOneTransaction() throws Exception {
+        groupCommitWriter = writer(true, 3);
+        when(dataBodyServiceMock.saveDataBodies(anyList()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), Boolean.TRUE));
+
+        CompletableFuture.allOf(write("A"), write("B"), write("C")).get(10, TimeUnit.SECONDS);
+
+        ArgumentCaptor<List<DataBodyEntity>> committed = ArgumentCaptor.forClass(List.class);
+        verify(dataBodyServiceMock, times(1)).saveDataBodies(committed.capture());
+        assertThat(committed.getValue()).extracting(entity -> entity.getDataHeaderEntity().getName())
+                .containsExactlyInAnyOrder("A", "B", "C");
+    }
+
+    @Test
+    public void shouldFailOnlyTheRowThatWasNotPersisted() throws Exception {
+        groupCommitWriter = writer(true, 2);
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenReturn(Arrays.asList(Boolean.FALSE, Boolean.TRUE));
+
+        CompletableFuture<Void> first = write("A");
+        CompletableFuture<Void> second = write("B");
+
+        assertThat(joinFailed(first) ^ joinFailed(second)).isTrue();
+        verify(dataBodyServiceMock, times(1)).saveDataBodies(anyList());
+    }
+
+    @Test
+    public void shouldMoveARepeatedNameToTheNextBatch() throws Exception {
+        groupCommitWriter = writer(true, 2);
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenReturn(Collections.singletonList(Boolean.TRUE));
+
+        CompletableFuture<Void> first = write("SAME");
+        CompletableFuture<Void> second = write("SAME");
+
+        CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+        verify(dataBodyServiceMock, times(2)).saveDataBodies(anyList());
+    }
+
+    @Test
+    public void shouldRejectWritesOnceTheCommitterHasStopped() throws Exception {
+        groupCommitWriter = writer(true, 1);
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenThrow(new OutOfMemoryError("Java heap space"));
+
+        assertThatThrownBy(() -> write("A").get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> write("B").get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        verify(dataBodyServiceMock, times(1)).saveDataBodies(anyList());
+    }
+
+    @Test
+    public void shouldSaveDirectlyWhenDisabled() {
+        groupCommitWriter = writer(false, 3);
+        DataBodyEntity dataBody = entity("A");
+
+        groupCommitWriter.write(dataBody);
+
+        verify(dataBodyServiceMock).saveDataBody(dataBody);
+        verify(dataBodyServiceMock, never()).saveDataBodies(any());
+    }
+
+    private GroupCommitWriterImpl writer(boolean enabled, int maxBatchSize) {
+        return new GroupCommitWriterImpl(dataBodyServiceMock, new SimpleMeterRegistry(),
+                enabled, maxBatchSize, MAX_WAIT_MICROS, 100, 1000);
+    }
+
+    private CompletableFuture<Void> write(String name) {
+        DataBodyEntity dataBody = entity(name);
+        return CompletableFuture.runAsync(() -> groupCommitWriter.write(dataBody), writers);
+    }
+
+    private static boolean joinFailed(CompletableFuture<Void> write) {
+        try {
+            write.get(10, TimeUnit.SECONDS);
+            return false;
+        } catch (Exception failed) {
+            return true;
+        }
+    }
+
+    private static DataBodyEntity entity(String name) {
+        DataHeaderEntity header = createTestDataHeaderEntity(Instant.now());
+        header.setName(name);
+        return createTestDataBodyEntity(header);
+    }
+}
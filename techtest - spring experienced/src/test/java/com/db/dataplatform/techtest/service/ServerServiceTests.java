@@ -1,24 +1,56 @@
 package com.db.dataplatform.techtest.service;
 
+import com.db.dataplatform.techtest.server.api.model.BatchItemResult;
+import com.db.dataplatform.techtest.server.api.model.BatchItemStatus;
+import com.db.dataplatform.techtest.server.api.model.ChecksumAlgorithm;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.mapper.ServerMapperConfiguration;
+import com.db.dataplatform.techtest.server.mapper.impl.DirectEnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.metrics.IngestMetrics;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataDigest;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.service.ChunkedBodyService;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataHeaderService;
+import com.db.dataplatform.techtest.server.service.GroupCommitWriter;
+import com.db.dataplatform.techtest.server.service.WalIngestService;
 import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.impl.ChecksumCalculatorImpl;
 import com.db.dataplatform.techtest.server.component.impl.ServerImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.modelmapper.ModelMapper;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvIncorrectHash;
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ServerServiceTests {
@@ -26,12 +58,25 @@ public class ServerServiceTests {
     @Mock
     private DataBodyService dataBodyServiceImplMock;
 
+    @Mock
+    private GroupCommitWriter groupCommitWriterMock;
+
+    @Mock
+    private WalIngestService walIngestServiceMock;
+
+    @Mock
+    private ChunkedBodyService chunkedBodyServiceMock;
+
+    @Mock
+    private DataHeaderService dataHeaderServiceMock;
+
     private ModelMapper modelMapper;
 
     private DataBodyEntity expectedDataBodyEntity;
     private DataEnvelope testDataEnvelope;
 
     private Server server;
+    private MeterRegistry meterRegistry;
 
     @Before
     public void setup() throws NoSuchAlgorithmException {
@@ -42,7 +87,10 @@ public class ServerServiceTests {
         expectedDataBodyEntity = modelMapper.map(testDataEnvelope.getDataBody(), DataBodyEntity.class);
         expectedDataBodyEntity.setDataHeaderEntity(modelMapper.map(testDataEnvelope.getDataHeader(), DataHeaderEntity.class));
 
-        server = new ServerImpl(dataBodyServiceImplMock, modelMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        server = new ServerImpl(dataBodyServiceImplMock, new DirectEnvelopeEntityMapper(), new ChecksumCalculatorImpl(),
+                new IngestMetrics(meterRegistry), groupCommitWriterMock, walIngestServiceMock,
+                chunkedBodyServiceMock, dataHeaderServiceMock);
     }
 
     @Test
@@ -50,6 +98,176 @@ public class ServerServiceTests {
         boolean success = server.saveDataEnvelope(testDataEnvelope);
 
         assertThat(success).isTrue();
+        verify(groupCommitWriterMock).write(any());
         //verify(dataBodyServiceImplMock, times(1)).saveDataBody(eq(expectedDataBodyEntity));
     }
+
+    @Test
+    public void shouldRejectDataEnvelopeWithIncorrectChecksum() throws NoSuchAlgorithmException, IOException {
+        boolean success = server.saveDataEnvelope(createTestDataEnvIncorrectHash());
+
+        assertThat(success).isFalse();
+        verify(dataBodyServiceImplMock, never()).saveDataBody(any());
+        verify(groupCommitWriterMock, never()).write(any());
+        assertThat(meterRegistry.get(IngestMetrics.CHECKSUM_COUNTER)
+                .tags("algorithm", "MD5", "result", "fail").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordThePayloadSizeInEncodedBytes() {
+        // Two, three and four bytes in UTF-8, but four chars.
+        DataBody body = new DataBody("\u00e9\u20ac\ud83d\ude00");
+
+        server.saveDataEnvelope(new DataEnvelope(new DataHeader(TEST_NAME, BlockTypeEnum.BLOCKTYPEA), body, MD5_CHECKSUM),
+                ChecksumAlgorithm.MD5);
+
+        assertThat(meterRegistry.get(IngestMetrics.PAYLOAD_SUMMARY).summary().totalAmount()).isEqualTo(9);
+    }
+
+    @Test
+    public void shouldReportPerItemResultsForABatch() throws NoSuchAlgorithmException {
+        when(dataBodyServiceImplMock.saveDataBodies(anyList())).thenReturn(Arrays.asList(true, false));
+
+        List<BatchItemResult> results = server.saveDataEnvelopes(Arrays.asList(testDataEnvelope, createTestDataEnvelopeApiObject()), ChecksumAlgorithm.MD5);
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemStatus.PERSISTED, BatchItemStatus.PERSISTENCE_FAILED);
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1);
+    }
+
+    @Test
+    public void shouldAnswerAnUnchangedRetryWithoutAWrite() {
+        when(dataBodyServiceImplMock.getDigests(Collections.singletonList(TEST_NAME)))
+                .thenReturn(Collections.singletonList(digest(TEST_NAME, MD5_CHECKSUM, BlockTypeEnum.BLOCKTYPEA)));
+
+        assertThat(server.saveDataEnvelope(testDataEnvelope, ChecksumAlgorithm.MD5)).isTrue();
+
+        verify(groupCommitWriterMock, never()).write(any());
+        verify(walIngestServiceMock, never()).append(any());
+        assertThat(meterRegistry.get(IngestMetrics.UNCHANGED_COUNTER).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLogAPushForANameWithLoggedChangesStillToApply() {
+        // The stored envelope matches, but another one logged since is still to be applied and would overwrite it.
+        when(walIngestServiceMock.isEnabled()).thenReturn(true);
+        when(walIngestServiceMock.isPending(TEST_NAME)).thenReturn(true);
+
+        assertThat(server.saveDataEnvelope(testDataEnvelope, ChecksumAlgorithm.MD5)).isTrue();
+
+        verify(walIngestServiceMock).append(testDataEnvelope);
+        verify(dataBodyServiceImplMock, never()).getDigests(any());
+    }
+
+    @Test
+    public void shouldLogABatchItemForANameWithLoggedChangesStillToApply() {
+        // As for a single push: the stored row matches, but a change logged since would overwrite it.
+        when(walIngestServiceMock.isEnabled()).thenReturn(true);
+        when(walIngestServiceMock.isPending(TEST_NAME)).thenReturn(true);
+        when(dataBodyServiceImplMock.getDigests(Collections.singletonList(TEST_NAME)))
+                .thenReturn(Collections.singletonList(digest(TEST_NAME, MD5_CHECKSUM, BlockTypeEnum.BLOCKTYPEA)));
+
+        List<BatchItemResult> results = server.saveDataEnvelopes(Collections.singletonList(testDataEnvelope), ChecksumAlgorithm.MD5);
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(BatchItemStatus.PERSISTED);
+        verify(walIngestServiceMock).append(testDataEnvelope);
+    }
+
+    @Test
+    public void shouldWriteARetryWhoseBlockTypeChanged() {
+        when(dataBodyServiceImplMock.getDigests(Collections.singletonList(TEST_NAME)))
+                .thenReturn(Collections.singletonList(digest(TEST_NAME, MD5_CHECKSUM, BlockTypeEnum.BLOCKTYPEB)));
+
+        assertThat(server.saveDataEnvelope(testDataEnvelope, ChecksumAlgorithm.MD5)).isTrue();
+
+        verify(groupCommitWriterMock).write(any());
+    }
+
+    @Test
+    public void shouldOnlyWriteTheChangedEnvelopesOfABatch() {
+        DataEnvelope changed = new DataEnvelope(new DataHeader("CHANGED", BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), MD5_CHECKSUM);
+        when(dataBodyServiceImplMock.getDigests(Arrays.asList(TEST_NAME, "CHANGED")))
+                .thenReturn(Collections.singletonList(digest(TEST_NAME, MD5_CHECKSUM, BlockTypeEnum.BLOCKTYPEA)));
+        when(dataBodyServiceImplMock.saveDataBodies(anyList())).thenReturn(Collections.singletonList(true));
+
+        List<BatchItemResult> results = server.saveDataEnvelopes(Arrays.asList(testDataEnvelope, changed), ChecksumAlgorithm.MD5);
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemStatus.PERSISTED, BatchItemStatus.PERSISTED);
+        ArgumentCaptor<List<DataBodyEntity>> written = ArgumentCaptor.forClass(List.class);
+        verify(dataBodyServiceImplMock).saveDataBodies(written.capture());
+        assertThat(written.getValue()).extracting(entity -> entity.getDataHeaderEntity().getName()).containsExactly("CHANGED");
+    }
+
+    @Test
+    public void shouldDeleteAChunkedBodyWithoutLoggingIt() {
+        when(chunkedBodyServiceMock.deleteChunkedBody(TEST_NAME)).thenReturn(true);
+
+        assertThat(server.deleteDataByName(TEST_NAME)).isTrue();
+
+        verify(walIngestServiceMock, never()).delete(any());
+        verify(dataBodyServiceImplMock, never()).deleteDataBody(any());
+    }
+
+    @Test
+    public void shouldLogADeleteWhenTheWriteAheadLogIsEnabled() {
+        when(walIngestServiceMock.isEnabled()).thenReturn(true);
+        when(walIngestServiceMock.delete(TEST_NAME)).thenReturn(true);
+
+        assertThat(server.deleteDataByName(TEST_NAME)).isTrue();
+
+        verify(dataBodyServiceImplMock, never()).deleteDataBody(any());
+    }
+
+    @Test
+    public void shouldLogABlockTypeUpdateWhenTheWriteAheadLogIsEnabled() {
+        when(walIngestServiceMock.isEnabled()).thenReturn(true);
+        when(walIngestServiceMock.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, 3L)).thenReturn(Optional.of(4L));
+
+        assertThat(server.updateBlockType(TEST_NAME, BlockTypeEnum.BLOCKTYPEB, 3L)).contains(4L);
+
+        verify(dataHeaderServiceMock, never()).updateBlockType(any(), any(), any());
+    }
+
+    @Test
+    public void shouldLogTheChangedEnvelopesOfABatchWhenTheWriteAheadLogIsEnabled() {
+        DataEnvelope changed = new DataEnvelope(new DataHeader("CHANGED", BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), MD5_CHECKSUM);
+        DataEnvelope refused = new DataEnvelope(new DataHeader("REFUSED", BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), MD5_CHECKSUM);
+        when(walIngestServiceMock.isEnabled()).thenReturn(true);
+        when(dataBodyServiceImplMock.getDigests(Arrays.asList(TEST_NAME, "CHANGED", "REFUSED")))
+                .thenReturn(Collections.singletonList(digest(TEST_NAME, MD5_CHECKSUM, BlockTypeEnum.BLOCKTYPEA)));
+        doAnswer(invocation -> {
+            if (invocation.<DataEnvelope>getArgument(0) == refused) {
+                throw new RejectedExecutionException("Write-ahead log is closed");
+            }
+            return null;
+        }).when(walIngestServiceMock).append(any());
+
+        List<BatchItemResult> results = server.saveDataEnvelopes(Arrays.asList(testDataEnvelope, changed, refused), ChecksumAlgorithm.MD5);
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemStatus.PERSISTED, BatchItemStatus.PERSISTED, BatchItemStatus.PERSISTENCE_FAILED);
+        verify(walIngestServiceMock).append(changed);
+        verify(walIngestServiceMock, never()).append(testDataEnvelope);
+        verify(dataBodyServiceImplMock, never()).saveDataBodies(anyList());
+    }
+
+    private static DataDigest digest(String name, String contentChecksum, BlockTypeEnum blockType) {
+        return new DataDigest() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getContentChecksum() {
+                return contentChecksum;
+            }
+
+            @Override
+            public BlockTypeEnum getBlocktype() {
+                return blockType;
+            }
+        };
+    }
 }
@@ -0,0 +1,101 @@
+package com.db.dataplatform.techtest.wal;
+
+import com.db.dataplatform.techtest.server.wal.MappedWriteAheadLog;
+import com.db.dataplatform.techtest.server.wal.WalRecord;
+import com.db.dataplatform.techtest.server.wal.WalSyncPolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedWriteAheadLogTests {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReplayAppendedRecordsInOrderAfterReopening() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedWriteAheadLog writeAheadLog = open(directory)) {
+            assertThat(writeAheadLog.append(bytes("first"))).isEqualTo(1);
+            assertThat(writeAheadLog.append(bytes("second"))).isEqualTo(2);
+        }
+
+        try (MappedWriteAheadLog reopened = open(directory)) {
+            assertThat(payloads(reopened, 0)).containsExactly("first", "second");
+            assertThat(payloads(reopened, 1)).containsExactly("second");
+            assertThat(reopened.append(bytes("third"))).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void shouldRollSegmentsAndDeleteAppliedOnes() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedWriteAheadLog writeAheadLog = open(directory)) {
+            byte[] record = new byte[1000];
+            for (int i = 0; i < 10; i++) {
+                writeAheadLog.append(record);
+            }
+            assertThat(segments(directory)).hasSize(3);
+            assertThat(payloads(writeAheadLog, 0)).hasSize(10);
+
+            writeAheadLog.truncateBefore(5);
+
+            assertThat(segments(directory)).hasSize(2);
+            assertThat(payloads(writeAheadLog, 4)).hasSize(6);
+        }
+    }
+
+    @Test
+    public void shouldDropATornRecordAndAppendAfterTheLastIntactOne() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedWriteAheadLog writeAheadLog = open(directory)) {
+            writeAheadLog.append(bytes("intact"));
+            writeAheadLog.append(bytes("torn"));
+        }
+        int tornPayloadOffset = 16 + "intact".length() + 16;
+        try (RandomAccessFile segment = new RandomAccessFile(segments(directory).get(0).toFile(), "rw")) {
+            segment.seek(tornPayloadOffset);
+            segment.write('X');
+        }
+
+        try (MappedWriteAheadLog reopened = open(directory)) {
+            assertThat(payloads(reopened, 0)).containsExactly("intact");
+            assertThat(reopened.append(bytes("next"))).isEqualTo(2);
+            assertThat(payloads(reopened, 0)).containsExactly("intact", "next");
+        }
+    }
+
+    private static MappedWriteAheadLog open(Path directory) {
+        return new MappedWriteAheadLog(directory, SEGMENT_BYTES, WalSyncPolicy.ALWAYS, 0);
+    }
+
+    private static List<String> payloads(MappedWriteAheadLog writeAheadLog, long afterSequence) {
+        List<String> payloads = new ArrayList<>();
+        writeAheadLog.replay(afterSequence, (WalRecord record) -> payloads.add(new String(record.getPayload(), StandardCharsets.UTF_8)));
+        return payloads;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+}
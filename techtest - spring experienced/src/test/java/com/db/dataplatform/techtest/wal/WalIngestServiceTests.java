@@ -0,0 +1,284 @@
+package com.db.dataplatform.techtest.wal;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.mapper.impl.DirectEnvelopeEntityMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.DataHeaderService;
+import com.db.dataplatform.techtest.server.service.impl.WalIngestServiceImpl;
+import com.db.dataplatform.techtest.server.wal.WalSyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WalIngestServiceTests {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private DataBodyService dataBodyServiceMock;
+
+    @Mock
+    private DataHeaderService dataHeaderServiceMock;
+
+    private final List<String> applied = Collections.synchronizedList(new ArrayList<>());
+    private final List<WalIngestServiceImpl> started = new ArrayList<>();
+    private volatile String refused;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        for (WalIngestServiceImpl walIngestService : started) {
+            walIngestService.close();
+        }
+    }
+
+    @Test
+    public void shouldReplayTheWholeLogAfterARestart() throws InterruptedException {
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenAnswer(this::persistAll);
+        WalIngestServiceImpl walIngestService = start(false, 100);
+        walIngestService.append(envelope("A"));
+        walIngestService.append(envelope("B"));
+        walIngestService.close();
+        assertThat(applied).containsExactly("A", "B");
+
+        applied.clear();
+        start(false, 100);
+
+        assertThat(applied).containsExactly("A", "B");
+    }
+
+    @Test
+    public void shouldNotBringADeletedNameBackOnReplay() throws InterruptedException {
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenAnswer(this::persistAll);
+        when(dataBodyServiceMock.deleteDataBody(anyString())).thenAnswer(invocation -> applied.add("-" + invocation.getArgument(0)));
+        WalIngestServiceImpl walIngestService = start(false, 100);
+        walIngestService.append(envelope("A"));
+        walIngestService.append(envelope("B"));
+        assertThat(walIngestService.delete("A")).isTrue();
+        walIngestService.append(envelope("C"));
+        walIngestService.close();
+        assertThat(applied).containsExactly("A", "B", "-A", "C");
+
+        applied.clear();
+        start(false, 100);
+
+        assertThat(applied).containsExactly("A", "B", "-A", "C");
+    }
+
+    @Test
+    public void shouldReplayOnlyTheBlockTypeUpdatesThatWereApplied() throws InterruptedException {
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenAnswer(this::persistAll);
+        when(dataHeaderServiceMock.updateBlockType("A", BlockTypeEnum.BLOCKTYPEB, 0L)).thenReturn(Optional.of(1L));
+        when(dataHeaderServiceMock.updateBlockType("A", BlockTypeEnum.BLOCKTYPEA, 0L))
+                .thenThrow(new OptimisticLockingFailureException("Header A is at version 1, not 0"));
+        WalIngestServiceImpl walIngestService = start(false, 100);
+        walIngestService.append(envelope("A"));
+        assertThat(walIngestService.updateBlockType("A", BlockTypeEnum.BLOCKTYPEB, 0L)).contains(1L);
+        assertThatThrownBy(() -> walIngestService.updateBlockType("A", BlockTypeEnum.BLOCKTYPEA, 0L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        walIngestService.close();
+
+        when(dataHeaderServiceMock.updateBlockType("A", BlockTypeEnum.BLOCKTYPEB, null)).thenReturn(Optional.of(1L));
+        start(false, 100);
+
+        verify(dataHeaderServiceMock).updateBlockType("A", BlockTypeEnum.BLOCKTYPEB, null);
+        verify(dataHeaderServiceMock, never()).updateBlockType("A", BlockTypeEnum.BLOCKTYPEA, null);
+    }
+
+    @Test
+    public void shouldCheckpointAndTruncateWhatWasApplied() throws IOException, InterruptedException {
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenAnswer(this::persistAll);
+        WalIngestServiceImpl walIngestService = start(true, 100);
+        for (int i = 0; i < 60; i++) {
+            walIngestService.append(envelope("N" + i));
+        }
+        walIngestService.close();
+
+        assertThat(applied).hasSize(60);
+        assertThat(checkpoint()).isEqualTo("60");
+        assertThat(segmentCount()).isEqualTo(1);
+
+        applied.clear();
+        start(true, 100);
+
+        assertThat(applied).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepARowTheDatabaseRefusedInTheLog() throws IOException, InterruptedException {
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenAnswer(this::persistAll);
+        refused = "B";
+        WalIngestServiceImpl walIngestService = start(true, 100);
+        walIngestService.append(envelope("A"));
+        walIngestService.append(envelope("B"));
+        walIngestService.append(envelope("C"));
+        walIngestService.close();
+
+        assertThat(checkpoint()).isEqualTo("1");
+        assertThat(walIngestService.isPending("A")).isFalse();
+        assertThat(walIngestService.isPending("B")).isTrue();
+
+        applied.clear();
+        refused = null;
+        start(true, 100);
+
+        assertThat(applied).containsExactly("B", "C");
+    }
+
+    @Test
+    public void shouldKeepApplyingAfterABatchFails() throws IOException, InterruptedException {
+        when(dataBodyServiceMock.saveDataBodies(anyList()))
+                .thenThrow(new IllegalStateException("Connection is closed"))
+                .thenAnswer(this::persistAll);
+        WalIngestServiceImpl walIngestService = start(true, 100);
+        walIngestService.append(envelope("A"));
+        verify(dataBodyServiceMock, timeout(10000)).saveDataBodies(anyList());
+        walIngestService.append(envelope("B"));
+        walIngestService.close();
+
+        assertThat(applied).containsExactly("B");
+        assertThat(Files.exists(folder.getRoot().toPath().resolve("checkpoint"))).isFalse();
+
+        applied.clear();
+        start(true, 100);
+
+        assertThat(applied).containsExactly("A", "B");
+    }
+
+    @Test
+    public void shouldBlockAppendsWhileTheApplyQueueIsFull() throws Exception {
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenAnswer(invocation -> {
+            applying.countDown();
+            release.await();
+            return persistAll(invocation);
+        });
+        WalIngestServiceImpl walIngestService = start(false, 1);
+        walIngestService.append(envelope("A"));
+        assertThat(applying.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(walIngestService.isPending("A")).isTrue();
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> walIngestService.append(envelope("B")));
+        Thread.sleep(200);
+        assertThat(blocked).isNotDone();
+
+        release.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        walIngestService.close();
+        assertThat(applied).containsExactly("A", "B");
+        assertThat(walIngestService.isPending("A")).isFalse();
+    }
+
+    @Test
+    public void shouldNotLogAnEnvelopeWhenInterruptedWhileWaiting() throws InterruptedException {
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataBodyServiceMock.saveDataBodies(anyList())).thenAnswer(invocation -> {
+            applying.countDown();
+            release.await();
+            return persistAll(invocation);
+        });
+        WalIngestServiceImpl walIngestService = start(false, 1);
+        walIngestService.append(envelope("A"));
+        assertThat(applying.await(10, TimeUnit.SECONDS)).isTrue();
+
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(() -> walIngestService.append(envelope("B"))).isInstanceOf(RejectedExecutionException.class);
+        assertThat(Thread.interrupted()).isTrue();
+
+        release.countDown();
+        walIngestService.close();
+        applied.clear();
+        start(false, 100);
+
+        assertThat(applied).containsExactly("A");
+    }
+
+    @Test
+    public void shouldRejectAppendsOnceClosed() throws InterruptedException {
+        WalIngestServiceImpl walIngestService = start(false, 100);
+        walIngestService.close();
+
+        assertThatThrownBy(() -> walIngestService.append(envelope("A"))).isInstanceOf(RejectedExecutionException.class);
+        verify(dataBodyServiceMock, never()).saveDataBodies(anyList());
+    }
+
+    /**
+     * Opens the log in the temporary folder and replays it, as the application does on startup.
+     */
+    private WalIngestServiceImpl start(boolean databaseDurable, int applyQueueCapacity) {
+        WalIngestServiceImpl walIngestService = new WalIngestServiceImpl(dataBodyServiceMock, dataHeaderServiceMock,
+                new DirectEnvelopeEntityMapper(), new SimpleMeterRegistry(), true, folder.getRoot().getPath(), SEGMENT_BYTES, WalSyncPolicy.ALWAYS, 10,
+                databaseDurable, 500, applyQueueCapacity, 10000);
+        started.add(walIngestService);
+        walIngestService.recover();
+        return walIngestService;
+    }
+
+    private List<Boolean> persistAll(InvocationOnMock invocation) {
+        List<DataBodyEntity> dataBodies = invocation.getArgument(0);
+        List<Boolean> persisted = new ArrayList<>(dataBodies.size());
+        for (DataBodyEntity dataBody : dataBodies) {
+            String name = dataBody.getDataHeaderEntity().getName();
+            boolean persist = !name.equals(refused);
+            persisted.add(persist);
+            if (persist) {
+                applied.add(name);
+            }
+        }
+        return persisted;
+    }
+
+    private String checkpoint() throws IOException {
+        return new String(Files.readAllBytes(folder.getRoot().toPath().resolve("checkpoint")), StandardCharsets.US_ASCII);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(file -> file.toString().endsWith(".wal")).count();
+        }
+    }
+
+    private static DataEnvelope envelope(String name) {
+        return new DataEnvelope(new DataHeader(name, BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), null);
+    }
+}